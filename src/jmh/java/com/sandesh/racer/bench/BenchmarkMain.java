@@ -0,0 +1,22 @@
+package com.sandesh.racer.bench;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Entry point of benchmarks.jar: accepts the usual JMH flags and always writes JSON results
+// (default target/jmh-result.json, override with -Dbench.result=<file>) for tracking across releases
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        String result = System.getProperty("bench.result", "target/jmh-result.json");
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .resultFormat(ResultFormatType.JSON)
+                .result(result)
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,30 @@
+package com.sandesh.racer.bench;
+
+import com.sandesh.racer.logic.GameSimulation;
+import com.sandesh.racer.logic.InputSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Whole headless games with a fixed weaving input, one op = one seeded game
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GameSimulationBenchmark {
+
+    private static final InputSource WEAVE = sim -> switch ((int) (sim.getTick() / 40 % 3)) {
+        case 0 -> InputSource.LEFT;
+        case 1 -> InputSource.RIGHT;
+        default -> 0;
+    };
+
+    private long seed = 0;
+
+    @Benchmark
+    public GameSimulation.Result game() {
+        return new GameSimulation(seed++).run(WEAVE, 100_000);
+    }
+}
@@ -0,0 +1,66 @@
+package com.sandesh.racer.bench;
+
+import com.sandesh.racer.logic.HighScoreManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// addScore/getTopScores on a full board of growing capacity. A score that makes the board
+// costs one fsynced journal append, so addScore mostly measures the disk.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HighScoreManagerBenchmark {
+
+    @Param({"10", "50", "1000", "100000", "1000000"})
+    public int entries;
+
+    private Path dir;
+    private HighScoreManager manager;
+    private final Random rng = new Random(42);
+
+    @Setup(Level.Trial)
+    public void fillBoard() throws IOException {
+        dir = Files.createTempDirectory("neon-rush-bench");
+        manager = new HighScoreManager(dir, entries);
+        // Batched so filling a large board is not one fsync per score
+        List<HighScoreManager.ScoreEntry> batch = new ArrayList<>();
+        for (int i = 0; i < entries; i++) {
+            batch.add(new HighScoreManager.ScoreEntry("Player" + i, rng.nextInt(100_000)));
+            if (batch.size() == 10_000 || i == entries - 1) {
+                manager.addScores(batch);
+                batch.clear();
+            }
+        }
+        manager.compactNow();
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteDir() throws IOException {
+        manager.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) Files.deleteIfExists(p);
+        }
+    }
+
+    @Benchmark
+    public void addScore() throws IOException {
+        manager.addScore("Bench", rng.nextInt(100_000));
+    }
+
+    @Benchmark
+    public List<HighScoreManager.ScoreEntry> getTopScores() {
+        return manager.getTopScores(10);
+    }
+}
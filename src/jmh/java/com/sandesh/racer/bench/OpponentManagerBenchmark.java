@@ -0,0 +1,56 @@
+package com.sandesh.racer.bench;
+
+import com.sandesh.racer.logic.OpponentManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Per-tick cost of the opponent store at growing traffic densities
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OpponentManagerBenchmark {
+
+    private static final double TICK_MS = 1000.0 / 60;
+    // Warm-up plus measured ticks stay under one 6 s difficulty step, so every invocation runs at level 1 speed
+    private static final int TICKS = 150;
+    private static final int WARMUP_TICKS = 200;
+
+    @Param({"100", "1000", "10000"})
+    public int opponents;
+
+    private OpponentManager manager;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        manager = new OpponentManager(3, 60, 360, 720);
+        // Let the traffic spread over the whole road before measuring
+        for (int t = 0; t < WARMUP_TICKS; t++) tickWithTraffic();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int update() {
+        for (int t = 0; t < TICKS; t++) tickWithTraffic();
+        return manager.getOpponentCount();
+    }
+
+    private void tickWithTraffic() {
+        manager.update(TICK_MS);
+        int missing = opponents - manager.getOpponentCount();
+        if (missing > 0) manager.spawnTraffic(missing);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TICKS)
+    public int collidesWith() {
+        int hits = 0;
+        for (int t = 0; t < TICKS; t++) {
+            if (manager.collidesWith(60 + t, 578, 54, 92)) hits++;
+        }
+        return hits;
+    }
+}
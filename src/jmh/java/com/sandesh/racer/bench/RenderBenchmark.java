@@ -0,0 +1,103 @@
+package com.sandesh.racer.bench;
+
+import com.sandesh.racer.logic.GameSnapshot;
+import com.sandesh.racer.model.OpponentCar;
+import com.sandesh.racer.model.PlayerCar;
+import com.sandesh.racer.ui.GamePanel;
+import com.sandesh.racer.ui.GameRenderer;
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.UiUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+// Offscreen rendering into a BufferedImage; runs without a display
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class RenderBenchmark {
+
+    private static final int ROAD_X = 60;
+    private static final int ROAD_WIDTH = 360;
+    private static final int LANES = 3;
+
+    @Param({"true", "false"})
+    public boolean sprites;
+
+    @Param({"true", "false"})
+    public boolean layerCache;
+
+    @Param({"HIGH", "MEDIUM", "LOW"})
+    public Quality quality;
+
+    private BufferedImage frame;
+    private Graphics2D g2;
+    private PlayerCar player;
+    private GameRenderer renderer;
+    private GameSnapshot snapshot;
+
+    @Setup
+    public void setUp() {
+        Quality.set(quality);
+        SpriteCache.setEnabled(sprites);
+        SpriteCache.shared().clear();
+        GameRenderer.setLayerCacheEnabled(layerCache);
+
+        frame = new BufferedImage(GamePanel.WIDTH, GamePanel.HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g2 = frame.createGraphics();
+        UiUtils.enableQuality(g2);
+
+        player = new PlayerCar(GamePanel.HEIGHT - 142, 54, 92);
+        renderer = new GameRenderer(ROAD_X, ROAD_WIDTH, LANES, player, new Font(Font.SANS_SERIF, Font.PLAIN, 12));
+
+        // A typical mid-game frame: eight opponents spread over the three lanes
+        int n = 8;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] ws = new int[n];
+        int[] hs = new int[n];
+        int[] palettes = new int[n];
+        int laneWidth = ROAD_WIDTH / LANES;
+        for (int i = 0; i < n; i++) {
+            ws[i] = 52 + i % 8;
+            hs[i] = 86 + i % 10;
+            xs[i] = ROAD_X + laneWidth * (i % LANES) + laneWidth / 2 - ws[i] / 2;
+            ys[i] = -80 + i * 95;
+            palettes[i] = i % OpponentCar.PALETTE_SIZE;
+        }
+        snapshot = new GameSnapshot(1000, 1234, 4, 5.2, 120f, ROAD_X + 33, Double.NaN, 400, 30,
+                n, xs, ys, ws, hs, palettes);
+    }
+
+    @TearDown
+    public void tearDown() {
+        g2.dispose();
+        SpriteCache.setEnabled(true);
+        GameRenderer.setLayerCacheEnabled(true);
+        Quality.set(Quality.HIGH);
+    }
+
+    @Benchmark
+    public BufferedImage gameFrame() {
+        renderer.render(g2, snapshot);
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage opponentCar() {
+        OpponentCar.draw(g2, 200, 300, 55, 90, 2);
+        return frame;
+    }
+
+    @Benchmark
+    public BufferedImage playerCar() {
+        player.draw(g2, ROAD_X + 33, 400, 30);
+        return frame;
+    }
+}
@@ -0,0 +1,30 @@
+package com.sandesh.racer.bench;
+
+import com.sandesh.racer.logic.ScoreManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ScoreManagerBenchmark {
+
+    private static final double TICK_MS = 1000.0 / 60;
+
+    private ScoreManager scoreManager;
+
+    @Setup
+    public void setUp() {
+        scoreManager = new ScoreManager();
+    }
+
+    @Benchmark
+    public int update() {
+        scoreManager.update(TICK_MS, 1.6);
+        return scoreManager.getScore();
+    }
+}
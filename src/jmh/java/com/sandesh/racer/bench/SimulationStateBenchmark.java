@@ -0,0 +1,58 @@
+package com.sandesh.racer.bench;
+
+import com.sandesh.racer.logic.DodgeBot;
+import com.sandesh.racer.logic.GameSimulation;
+import com.sandesh.racer.logic.SimulationState;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Snapshots per second of a game in progress at growing traffic densities: saving into a reused
+// SimulationState, restoring from it, and copyFrom between two simulations, which is a save and a
+// restore through the copy's own buffer and so costs about the two together
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SimulationStateBenchmark {
+
+    private static final int PLAY_TICKS = 600;
+
+    @Param({"10", "100", "1000"})
+    public int opponents;
+
+    private GameSimulation sim;
+    private GameSimulation copy;
+    private final SimulationState state = new SimulationState();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        sim = new GameSimulation(42);
+        DodgeBot bot = new DodgeBot();
+        for (int t = 0; t < PLAY_TICKS && sim.step(GameSimulation.TICK_MS, bot.poll(sim)); t++) { }
+        int missing = opponents - sim.getOpponentManager().getOpponentCount();
+        if (missing > 0) sim.getOpponentManager().spawnTraffic(missing);
+        copy = new GameSimulation(0);
+        sim.saveTo(state);
+    }
+
+    @Benchmark
+    public long save() {
+        sim.saveTo(state);
+        return state.getTick();
+    }
+
+    @Benchmark
+    public long restore() {
+        copy.restoreFrom(state);
+        return copy.getTick();
+    }
+
+    @Benchmark
+    public long copyFrom() {
+        copy.copyFrom(sim);
+        return copy.getTick();
+    }
+}
@@ -1,15 +1,26 @@
 package com.sandesh.racer;
 
+import com.sandesh.racer.ui.GraphicsProbe;
 import com.sandesh.racer.ui.MainFrame;
+import com.sandesh.racer.util.GameEvents;
 
 import javax.swing.SwingUtilities;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 public class App {
     public static void main(String[] args) {
+        GameEvents.startRecordingIfRequested();
+        // Must run before anything initialises AWT; --probe measures the graphics pipelines again
+        GraphicsProbe.configure(Arrays.asList(args).contains("--probe"));
         SwingUtilities.invokeLater(() -> {
             MainFrame frame = new MainFrame();
             frame.setLocationRelativeTo(null);
             frame.setVisible(true);
+            // -Dneonrush.fullscreen=true starts full screen, e.g. on a cabinet
+            if (Boolean.getBoolean("neonrush.fullscreen")) frame.setFullScreen(true);
+            // --replay <file> watches a recorded game instead of starting at the welcome screen
+            if (args.length >= 2 && args[0].equals("--replay")) frame.startReplay(Path.of(args[1]));
         });
     }
 }
\ No newline at end of file
@@ -0,0 +1,123 @@
+package com.sandesh.racer.logic;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives the player for attract mode. A LookaheadPlanner runs on a background thread a little
+// ahead of the game and leaves one action per tick in a ring that poll() reads without locks.
+// The planner follows the game by stepping its own copy with the actions it chose, which the game
+// then plays, so the two stay identical. When the game reaches a tick that has not been planned
+// (at the start, or if the planner fell behind) it hands the planner a copy of the real state;
+// both steer with DodgeBot for the next few ticks while the planner gets ahead again.
+//
+// The planner is held to a CPU budget per game tick (-Dneonrush.autopilot.budgetMicros, default
+// 1000): each decision covers MACRO_TICKS ticks and gets that many budgets, and once it is LEAD
+// ticks ahead it parks until the game catches up.
+public class Autopilot implements InputSource, AutoCloseable {
+
+    private static final long BUDGET_NANOS = Long.getLong("neonrush.autopilot.budgetMicros", 1000L) * 1000;
+    private static final int BEAM = 8;
+    private static final int DEPTH = 10;        // stretches of MACRO_TICKS, one second ahead at 60 Hz
+    private static final int RING = 256;        // power of two, above LEAD
+    private static final int LEAD = 60;         // ticks planned ahead of the game at most
+    private static final int HANDOVER_TICKS = 12; // DodgeBot ticks after a handover, time to plan the first stretch
+
+    private final double dtMillis;
+    private final DifficultyCurve curve;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    // Ring entries: tick << 24 | generation << 2 | action, one per tick; a stale tick or
+    // generation means not planned
+    private final AtomicLongArray plan = new AtomicLongArray(RING);
+    private final AtomicLong gameTick = new AtomicLong();
+    private final AtomicReference<Handover> handover = new AtomicReference<>();
+
+    private record Handover(SimulationState state, int generation, long planFrom) { }
+
+    // Game thread only
+    private final DodgeBot fallback = new DodgeBot();
+    private int generation = 0;
+    private long planFrom = Long.MAX_VALUE; // first tick the current generation's plan covers
+    private int handoverTicks = HANDOVER_TICKS; // doubles while the planner misses them, e.g. before the JIT warms up
+
+    // dtMillis: the step the game takes each tick, which the planner has to take too
+    public Autopilot(double dtMillis, DifficultyCurve curve) {
+        this.dtMillis = dtMillis;
+        this.curve = curve;
+        thread = new Thread(this::run, "autopilot");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Game thread: the action for the tick sim is about to take
+    @Override
+    public int poll(GameSimulation sim) {
+        long tick = sim.getTick();
+        gameTick.lazySet(tick);
+        if (tick >= planFrom) {
+            long e = plan.get((int) tick & (RING - 1));
+            if (e >>> 24 == tick && (int) (e >>> 2 & 0x3F_FFFF) == (generation & 0x3F_FFFF)) {
+                handoverTicks = HANDOVER_TICKS;
+                return (int) e & 3;
+            }
+            // Planner behind: hand over again below, with more time if it missed the start
+            if (tick == planFrom) handoverTicks = Math.min(handoverTicks * 2, LEAD);
+            planFrom = Long.MAX_VALUE;
+        }
+        if (planFrom == Long.MAX_VALUE) {
+            SimulationState state = new SimulationState();
+            sim.saveTo(state);
+            planFrom = tick + handoverTicks;
+            handover.set(new Handover(state, ++generation, planFrom));
+            LockSupport.unpark(thread);
+        }
+        return fallback.poll(sim);
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            try {
+                thread.join(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void run() {
+        LookaheadPlanner planner = new LookaheadPlanner(BEAM, DEPTH, dtMillis, curve);
+        DodgeBot dodge = new DodgeBot();
+        GameSimulation ahead = new GameSimulation(0, curve);
+        ahead.getOpponentManager().setEventsEnabled(false);
+        int gen = -1;
+        long idleNanos = (long) (dtMillis * 1_000_000 * LookaheadPlanner.MACRO_TICKS / 2);
+
+        while (!closed) {
+            Handover h = handover.getAndSet(null);
+            if (h != null) {
+                gen = h.generation();
+                ahead.restoreFrom(h.state());
+                // Play the ticks the game steers with DodgeBot, the same way it does
+                while (ahead.getTick() < h.planFrom() && ahead.step(dtMillis, dodge.poll(ahead))) { }
+            }
+            if (gen < 0 || ahead.isCrashed() || ahead.getTick() - gameTick.get() >= LEAD) {
+                LockSupport.parkNanos(this, idleNanos);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            int action = planner.plan(ahead, start + BUDGET_NANOS * LookaheadPlanner.MACRO_TICKS);
+            for (int k = 0; k < LookaheadPlanner.MACRO_TICKS; k++) {
+                long t = ahead.getTick();
+                plan.lazySet((int) t & (RING - 1), t << 24 | (long) (gen & 0x3F_FFFF) << 2 | action);
+                if (!ahead.step(dtMillis, action)) break;
+            }
+        }
+    }
+}
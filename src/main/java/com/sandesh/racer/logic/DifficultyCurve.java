@@ -0,0 +1,15 @@
+package com.sandesh.racer.logic;
+
+// Difficulty ramp used by OpponentManager: every stepMillis the level goes up, all cars get
+// speedStep faster and the spawn interval shrinks by spawnIntervalStep down to minSpawnInterval
+public record DifficultyCurve(double stepMillis, double speedStep,
+                              double startSpawnInterval, double spawnIntervalStep, double minSpawnInterval) {
+
+    // The hand-tuned curve the game ships with
+    public static final DifficultyCurve DEFAULT = new DifficultyCurve(6000, 0.35, 900, 40, 420);
+
+    public DifficultyCurve {
+        if (stepMillis <= 0) throw new IllegalArgumentException("stepMillis must be positive");
+        if (minSpawnInterval <= 0) throw new IllegalArgumentException("minSpawnInterval must be positive");
+    }
+}
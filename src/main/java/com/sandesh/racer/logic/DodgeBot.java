@@ -0,0 +1,76 @@
+package com.sandesh.racer.logic;
+
+import java.util.Arrays;
+
+// Scripted driver for headless runs: greedily steers to the reachable lane with the most free
+// road ahead, preferring to stay put and to keep to the middle. No lookahead, so it is a
+// consistent yardstick rather than a strong player. Keeps a small scratch buffer, so use one
+// instance per simulation thread.
+public class DodgeBot implements InputSource {
+
+    private static final double DEAD_ZONE = 3; // px; half the player step so the bot settles instead of jittering
+
+    private final double horizon;     // px; free road beyond this counts the same
+    private final double moveCost;    // px of free road a lane change must gain per lane
+    private final double centerBonus; // the middle lane keeps two escape routes open
+    private final double passGap;     // a lane can be crossed if its nearest car is at least this far
+    private double[] gaps = new double[0];
+
+    public DodgeBot() {
+        this(700, 30, 40, 120);
+    }
+
+    // Variants for comparing driving styles, e.g. in the bot tournament
+    public DodgeBot(double horizon, double moveCost, double centerBonus, double passGap) {
+        this.horizon = horizon;
+        this.moveCost = moveCost;
+        this.centerBonus = centerBonus;
+        this.passGap = passGap;
+    }
+
+    @Override
+    public int poll(GameSimulation sim) {
+        OpponentManager om = sim.getOpponentManager();
+        int lanes = om.getLanes();
+        if (gaps.length != lanes) gaps = new double[lanes];
+        Arrays.fill(gaps, Double.POSITIVE_INFINITY);
+
+        // Free road ahead per lane: distance from the player's nose to the nearest car not yet behind it
+        double playerTop = GameSimulation.PLAYER_Y;
+        double playerBottom = playerTop + GameSimulation.PLAYER_HEIGHT;
+        for (int i = 0, n = om.getOpponentCount(); i < n; i++) {
+            double y = om.getOpponentY(i);
+            if (y >= playerBottom) continue;
+            int l = om.getOpponentLane(i);
+            gaps[l] = Math.min(gaps[l], playerTop - (y + om.getOpponentHeight(i)));
+        }
+
+        int laneWidth = GameSimulation.ROAD_WIDTH / lanes;
+        double center = sim.getPlayerX() + GameSimulation.PLAYER_WIDTH / 2.0;
+        int current = Math.max(0, Math.min(lanes - 1, (int) ((center - GameSimulation.ROAD_X) / laneWidth)));
+
+        // Scan outwards both ways; a lane is only reachable if every lane on the way is passable
+        int target = current;
+        double best = laneValue(current, current, lanes);
+        for (int dir = -1; dir <= 1; dir += 2) {
+            for (int l = current + dir; l >= 0 && l < lanes && gaps[l] > passGap; l += dir) {
+                double v = laneValue(l, current, lanes);
+                if (v > best) {
+                    best = v;
+                    target = l;
+                }
+            }
+        }
+
+        double targetX = GameSimulation.ROAD_X + laneWidth * target + laneWidth / 2.0 - GameSimulation.PLAYER_WIDTH / 2.0;
+        double dx = targetX - sim.getPlayerX();
+        if (dx > DEAD_ZONE) return RIGHT;
+        if (dx < -DEAD_ZONE) return LEFT;
+        return 0;
+    }
+
+    private double laneValue(int l, int current, int lanes) {
+        double v = Math.min(gaps[l], horizon) - moveCost * Math.abs(l - current);
+        return l == lanes / 2 ? v + centerBonus : v;
+    }
+}
@@ -0,0 +1,68 @@
+package com.sandesh.racer.logic;
+
+// Fixed-timestep stepping for a game whose frames are driven from outside: whoever draws the
+// frames calls advance() before each one
+public class GameLoop {
+
+    public interface Stepper { void step(double dtMillis); }
+
+    // Frames' worth of ticks allowed per advance before the backlog is dropped (avoids the spiral
+    // of death after a stall)
+    private static final int CATCH_UP_FRAMES = 5;
+
+    private final long tickNanos;
+    private final double tickMillis;
+    private final int maxCatchUpTicks;
+    private final Stepper stepper;
+
+    private volatile boolean running = false;
+    private long lastNanos;
+    private long accumulator = 0;
+    private long tickCount = 0;
+
+    // frameRate: how often advance() is called, so a tick rate above it still keeps up
+    public GameLoop(int tickRate, int frameRate, Stepper stepper) {
+        tickRate = Math.max(1, tickRate);
+        frameRate = Math.max(1, frameRate);
+        this.tickNanos = 1_000_000_000L / tickRate;
+        this.tickMillis = tickNanos / 1_000_000.0;
+        this.maxCatchUpTicks = CATCH_UP_FRAMES * ((tickRate + frameRate - 1) / frameRate);
+        this.stepper = stepper;
+    }
+
+    public void start() {
+        lastNanos = System.nanoTime();
+        running = true;
+    }
+
+    // No more ticks; safe to call from any thread
+    public void stop() {
+        running = false;
+    }
+
+    public boolean isRunning() { return running; }
+
+    public long getTickCount() { return tickCount; }
+
+    public double getTickMillis() { return tickMillis; }
+
+    // Runs as many fixed ticks as the elapsed time allows; returns the interpolation factor in [0, 1)
+    public double advance(long nowNanos) {
+        long elapsed = nowNanos - lastNanos;
+        lastNanos = nowNanos;
+        if (elapsed < 0) elapsed = 0;
+        accumulator += elapsed;
+
+        int steps = 0;
+        while (accumulator >= tickNanos && running) {
+            stepper.step(tickMillis);
+            accumulator -= tickNanos;
+            tickCount++;
+            if (++steps >= maxCatchUpTicks) {
+                accumulator %= tickNanos;
+                break;
+            }
+        }
+        return (double) accumulator / tickNanos;
+    }
+}
@@ -0,0 +1,33 @@
+package com.sandesh.racer.logic;
+
+// Small seedable PRNG (SplitMix64) whose whole state is one long, so runs are reproducible
+// and the generator can be saved and restored along with the rest of the simulation
+public final class GameRandom {
+    private long state;
+
+    public GameRandom(long seed) {
+        this.state = seed;
+    }
+
+    public long nextLong() {
+        long z = (state += 0x9E3779B97F4A7C15L);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    // Uniform in [0, bound)
+    public int nextInt(int bound) {
+        if (bound <= 0) throw new IllegalArgumentException("bound must be positive");
+        return (int) (((nextLong() >>> 33) * bound) >>> 31);
+    }
+
+    // Uniform in [0, 1)
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    public long getState() { return state; }
+
+    public void setState(long state) { this.state = state; }
+}
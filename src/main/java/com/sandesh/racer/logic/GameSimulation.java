@@ -0,0 +1,209 @@
+package com.sandesh.racer.logic;
+
+import com.sandesh.racer.util.Telemetry;
+import com.sandesh.racer.util.Telemetry.Phase;
+
+// Headless game engine: traffic, scoring, player steering and collision, with no UI or AWT.
+// The same seed and the same inputs per tick always produce the same game.
+public class GameSimulation {
+
+    public static final int WIDTH = 480;
+    public static final int HEIGHT = 720;
+    public static final int ROAD_X = 60;
+    public static final int ROAD_WIDTH = 360;
+    public static final int LANES = 3;
+    public static final int PLAYER_WIDTH = 54;
+    public static final int PLAYER_HEIGHT = 92;
+    public static final int PLAYER_Y = HEIGHT - PLAYER_HEIGHT - 50;
+    public static final double TICK_MS = 1000.0 / 60;
+    public static final int PLAYER_MIN_X = ROAD_X + 8;
+    public static final int PLAYER_MAX_X = ROAD_X + ROAD_WIDTH - PLAYER_WIDTH - 8;
+    public static final double PLAYER_START_X = ROAD_X + ROAD_WIDTH / LANES / 2 - PLAYER_WIDTH / 2;
+
+    private static final double PLAYER_SPEED = 6.0; // px per tick
+    private static final int PASS_BONUS = 5;
+
+    public record Result(long seed, int score, int level, long ticks, long collisionTick) {
+        public boolean crashed() { return collisionTick >= 0; }
+    }
+
+    private long seed;
+    private final OpponentManager opponentManager;
+    private final ScoreManager scoreManager = new ScoreManager();
+
+    // Player state
+    private double playerX;
+    private double prevPlayerX; // x before the last tick, for render interpolation
+    private double pulseMs = 0;    // for subtle light pulsing
+    private double wheelPhase = 0; // fake "rotation" accent
+
+    private long tick = 0;
+    private long collisionTick = -1;
+
+    private Telemetry telemetry = Telemetry.DISABLED;
+    private GhostCar ghost; // another run driving alongside, drawn only
+    private SimulationState copyBuffer; // for copyFrom
+
+    public GameSimulation(long seed) {
+        this(seed, DifficultyCurve.DEFAULT);
+    }
+
+    public GameSimulation(long seed, DifficultyCurve curve) {
+        this.seed = seed;
+        this.opponentManager = new OpponentManager(LANES, ROAD_X, ROAD_WIDTH, HEIGHT, new GameRandom(seed), curve);
+        this.playerX = PLAYER_START_X;
+        this.prevPlayerX = playerX;
+    }
+
+    // Plays until a crash or maxTicks, polling the input once per tick
+    public Result run(InputSource input, long maxTicks) {
+        while (!isCrashed() && tick < maxTicks) {
+            step(input.poll(this));
+        }
+        return result();
+    }
+
+    public boolean step(int buttons) {
+        return step(TICK_MS, buttons);
+    }
+
+    // One simulation tick; returns false once the player has crashed
+    public boolean step(double dtMillis, int buttons) {
+        if (isCrashed()) return false;
+
+        // Animate player (lights/wheels pulse)
+        prevPlayerX = playerX;
+        pulseMs += dtMillis;
+        if (pulseMs > 10_000) pulseMs = 0;
+        // Tie wheel phase loosely to time; this is just for a subtle animated accent
+        wheelPhase += dtMillis * 0.08;
+        if (wheelPhase > 10_000) wheelPhase = 0;
+
+        // Input -> move player
+        playerX = steer(playerX, buttons);
+        if (ghost != null) ghost.step();
+
+        // Update world
+        long t = telemetry.start();
+        opponentManager.update(dtMillis);
+        scoreManager.update(dtMillis, opponentManager.getSpeedFactor());
+
+        // Check pass events for scoring bonus
+        int passed = opponentManager.consumePassedCount(PLAYER_Y + PLAYER_HEIGHT);
+        if (passed > 0) scoreManager.addPoints(passed * PASS_BONUS);
+
+        tick++;
+        telemetry.end(Phase.SIMULATION, t);
+
+        // Collision?
+        t = telemetry.start();
+        boolean hit = opponentManager.collidesWith(getPlayerLeft(), PLAYER_Y, PLAYER_WIDTH, PLAYER_HEIGHT);
+        telemetry.end(Phase.COLLISION, t);
+        if (hit) {
+            collisionTick = tick;
+            return false;
+        }
+        return true;
+    }
+
+    // Becomes an exact copy of another simulation on the same difficulty curve: the same steps from
+    // here play out the same in both. The ghost and telemetry are not copied. Goes through a state
+    // kept for the purpose, so saveTo/restoreFrom are the one list of what a copy takes; allocates
+    // nothing once that state has seen as much traffic as the simulations copied into this one.
+    public void copyFrom(GameSimulation o) {
+        if (!o.opponentManager.getCurve().equals(opponentManager.getCurve())) {
+            throw new IllegalArgumentException("copy of a different difficulty curve");
+        }
+        if (copyBuffer == null) copyBuffer = new SimulationState();
+        o.saveTo(copyBuffer);
+        restoreFrom(copyBuffer);
+    }
+
+    // Saves the whole game into a reusable state, e.g. to rewind to or to write out as a save
+    // game. Like copyFrom, it leaves out the ghost and telemetry.
+    public void saveTo(SimulationState s) {
+        opponentManager.saveTo(s);
+        scoreManager.saveTo(s);
+        s.seed = seed;
+        s.playerX = playerX;
+        s.prevPlayerX = prevPlayerX;
+        s.pulseMs = pulseMs;
+        s.wheelPhase = wheelPhase;
+        s.tick = tick;
+        s.collisionTick = collisionTick;
+    }
+
+    // Goes back to a state saved from a simulation on the same difficulty curve
+    public void restoreFrom(SimulationState s) {
+        opponentManager.restoreFrom(s);
+        scoreManager.restoreFrom(s);
+        seed = s.seed;
+        playerX = s.playerX;
+        prevPlayerX = s.prevPlayerX;
+        pulseMs = s.pulseMs;
+        wheelPhase = s.wheelPhase;
+        tick = s.tick;
+        collisionTick = s.collisionTick;
+    }
+
+    // Player x after one tick with the given buttons held; depends on nothing else
+    public static double steer(double x, int buttons) {
+        boolean left = (buttons & InputSource.LEFT) != 0;
+        boolean right = (buttons & InputSource.RIGHT) != 0;
+        if (left && !right) return Math.max(PLAYER_MIN_X, x - PLAYER_SPEED);
+        if (right && !left) return Math.min(PLAYER_MAX_X, x + PLAYER_SPEED);
+        return x;
+    }
+
+    // Copies the simulation into an immutable snapshot, interpolated between the last two ticks
+    public GameSnapshot captureSnapshot(double alpha) {
+        OpponentManager om = opponentManager;
+        int n = om.getOpponentCount();
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] ws = new int[n];
+        int[] hs = new int[n];
+        int[] palettes = new int[n];
+        for (int i = 0; i < n; i++) {
+            xs[i] = om.getOpponentX(i);
+            ys[i] = om.getOpponentPrevY(i) + (om.getOpponentY(i) - om.getOpponentPrevY(i)) * alpha;
+            ws[i] = om.getOpponentWidth(i);
+            hs[i] = om.getOpponentHeight(i);
+            palettes[i] = om.getOpponentPalette(i);
+        }
+        double px = prevPlayerX + (playerX - prevPlayerX) * alpha;
+        double gx = ghost != null && !ghost.isFinished() ? ghost.getX(alpha) : Double.NaN;
+        return new GameSnapshot(tick, scoreManager.getScore(), om.getLevel(), om.getCurrentSpeed(),
+                scoreManager.getDashPhase(alpha), px, gx, pulseMs, wheelPhase,
+                n, xs, ys, ws, hs, palettes);
+    }
+
+    public Result result() {
+        return new Result(seed, scoreManager.getScore(), opponentManager.getLevel(), tick, collisionTick);
+    }
+
+    public boolean isCrashed() { return collisionTick >= 0; }
+
+    // Tick of the crash, or -1
+    public long getCollisionTick() { return collisionTick; }
+
+    // Steps the ghost with every tick; it does not affect the game
+    public void setGhost(GhostCar ghost) {
+        this.ghost = ghost;
+    }
+
+    // Times the world update and collision test of each step
+    public void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry != null ? telemetry : Telemetry.DISABLED;
+    }
+
+    public long getSeed() { return seed; }
+    public long getTick() { return tick; }
+    public int getScore() { return scoreManager.getScore(); }
+    public int getLevel() { return opponentManager.getLevel(); }
+    public double getPlayerX() { return playerX; }
+    public int getPlayerLeft() { return (int) Math.round(playerX); }
+    public int getPlayerMinX() { return PLAYER_MIN_X; }
+    public int getPlayerMaxX() { return PLAYER_MAX_X; }
+    public OpponentManager getOpponentManager() { return opponentManager; }
+}
@@ -0,0 +1,20 @@
+package com.sandesh.racer.logic;
+
+// Immutable, already-interpolated view of one rendered frame; arrays are never shared after capture
+public record GameSnapshot(
+        long tick,
+        int score,
+        int level,
+        double speed,
+        float dashPhase,
+        double playerX,
+        double ghostX,      // NaN without a ghost car
+        double pulseMs,
+        double wheelPhase,
+        int opponentCount,
+        double[] opponentX,
+        double[] opponentY,
+        int[] opponentWidth,
+        int[] opponentHeight,
+        int[] opponentPalette
+) {}
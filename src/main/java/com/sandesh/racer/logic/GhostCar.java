@@ -0,0 +1,47 @@
+package com.sandesh.racer.logic;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+// A recorded run's car, moved by its recorded buttons alone: steering does not depend on the
+// traffic, so the ghost needs no simulation of its own. The replay is decoded one tick at a time.
+public class GhostCar implements Closeable {
+
+    private final ReplayReader replay;
+    private double x = GameSimulation.PLAYER_START_X;
+    private double prevX = x;
+    private long tick = 0;
+
+    public GhostCar(Path replayFile) throws IOException {
+        this.replay = new ReplayReader(replayFile);
+    }
+
+    public String getPlayerName() { return replay.getPlayerName(); }
+
+    // The recorded run's traffic: race on it at the recorded step for the ghost to mean anything
+    public GameSimulation newSimulation() { return replay.newSimulation(); }
+
+    public double getTickMillis() { return replay.getTickMillis(); }
+
+    public void step() {
+        prevX = x;
+        if (isFinished()) return;
+        x = GameSimulation.steer(x, replay.buttonsAt(tick));
+        tick++;
+    }
+
+    // The recorded run has ended (crashed, or the file stops)
+    public boolean isFinished() {
+        return replay.isFinished(tick);
+    }
+
+    public double getX(double alpha) {
+        return prevX + (x - prevX) * alpha;
+    }
+
+    @Override
+    public void close() throws IOException {
+        replay.close();
+    }
+}
@@ -1,71 +1,493 @@
 package com.sandesh.racer.logic;
 
+import com.sandesh.racer.util.GameEvents;
+
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// Crash-safe high scores: a snapshot plus a write-ahead journal of checksummed, fsynced records.
+// Reads come from an in-memory board, so saving a score costs one append. A background
+// compactor folds the journal into a new snapshot (write temp file, fsync, atomic rename).
+// Processes sharing the directory coordinate through a FileLock and catch up on each other's
+// appends before writing; use one instance per directory within a JVM. A score can bring the
+// replay of its run, which is kept in ghosts/<seq>.nrr for as long as the score is on the board.
+public class HighScoreManager implements AutoCloseable {
+
+    // Keep the best N scores; arcade boards can raise this with -Dneonrush.highscoreCapacity
+    public static final int DEFAULT_CAPACITY = Integer.getInteger("neonrush.highscoreCapacity", 50);
+
+    private static final String SNAPSHOT = "highscores.snap";
+    private static final String JOURNAL = "highscores.wal";
+    private static final String LOCK = "highscores.lock";
+    private static final String GHOSTS = "ghosts";
+
+    // Both files start with magic, version and generation. Compaction bumps the generation,
+    // so a journal older than the snapshot is known to be folded in already.
+    private static final int SNAPSHOT_MAGIC = 0x4E52534E; // "NRSN"
+    private static final int JOURNAL_MAGIC = 0x4E52574C;  // "NRWL"
+    private static final int VERSION = 2;          // 2 added GHOST_FLAG; version 1 files are read as is
+    private static final int JOURNAL_HEADER = 16;  // magic, version, generation
+    private static final int SNAPSHOT_HEADER = 20; // magic, version, generation, count
+    private static final int MAX_NAME = 20;
+    private static final int RECORD_SIZE = 58;     // seq long, score int, name length short, name chars, crc int
+    private static final int CRC_OFFSET = RECORD_SIZE - 4;
+    private static final int GHOST_FLAG = 0x4000;  // in the name length: the run has a ghost replay
+
+    private static final int COMPACT_AFTER = 256; // journal records before the compactor rewrites the snapshot
+    private static final long COMPACT_PERIOD_SECONDS = 30;
+
+    // Best score first; equal scores keep the order they were set in
+    private record Entry(int score, long seq, String name, boolean ghost) {}
+    private static final Comparator<Entry> RANKING = (a, b) -> a.score() != b.score()
+            ? Integer.compare(b.score(), a.score())
+            : Long.compare(a.seq(), b.seq());
+
+    // ghost: replay file of the run, or null
+    public record ScoreEntry(String name, int score, Path ghost) {
+        public ScoreEntry(String name, int score) {
+            this(name, score, null);
+        }
+    }
+
+    private final Path dir; // null: memory only
+    private final int capacity;
+    private final TreeSet<Entry> board = new TreeSet<>(RANKING);
+    private long nextSeq = 0;
+
+    private FileChannel journal;
+    private FileChannel lockFile;
+    private ScheduledExecutorService compactor;
+    private long generation = 0;
+    private long journalEnd;    // end of the records already applied to the board
+    private int journalRecords; // records in the journal since the last snapshot
 
-public class HighScoreManager {
+    public HighScoreManager() throws IOException {
+        this(Path.of(System.getProperty("user.home"), ".neon-rush"), DEFAULT_CAPACITY);
+    }
 
-    private final Path storagePath;
+    public HighScoreManager(Path dir) throws IOException {
+        this(dir, DEFAULT_CAPACITY);
+    }
 
-    public HighScoreManager() {
-        String home = System.getProperty("user.home");
-        Path dir = Path.of(home, ".neon-rush");
+    public HighScoreManager(Path dir, int capacity) throws IOException {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.dir = dir;
+        this.capacity = capacity;
+        Files.createDirectories(dir);
         try {
-            Files.createDirectories(dir);
-        } catch (IOException ignored) { }
-        storagePath = dir.resolve("highscores.txt");
+            lockFile = FileChannel.open(dir.resolve(LOCK), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            journal = FileChannel.open(dir.resolve(JOURNAL), StandardOpenOption.CREATE,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE);
+            withLock(() -> {
+                boolean fresh = !Files.exists(dir.resolve(SNAPSHOT)) && journal.size() == 0;
+                reload();
+                if (fresh) importLegacy();
+                if (journalRecords >= COMPACT_AFTER) compact();
+            });
+        } catch (IOException | RuntimeException e) {
+            closeFiles();
+            throw e;
+        }
+        compactor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "highscore-compactor");
+            t.setDaemon(true);
+            return t;
+        });
+        compactor.scheduleWithFixedDelay(this::compactIfNeeded, COMPACT_PERIOD_SECONDS, COMPACT_PERIOD_SECONDS, TimeUnit.SECONDS);
     }
 
-    public record ScoreEntry(String name, int score) {}
+    private HighScoreManager(int capacity) {
+        this.dir = null;
+        this.capacity = capacity;
+    }
+
+    // Fallback board that is never written to disk
+    public static HighScoreManager inMemory(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        return new HighScoreManager(capacity);
+    }
 
-    public synchronized void addScore(String name, int score) {
-        List<ScoreEntry> all = readAll();
-        all.add(new ScoreEntry(sanitize(name), score));
-        all.sort((a, b) -> Integer.compare(b.score(), a.score()));
-        // keep top 50
-        if (all.size() > 50) all = new ArrayList<>(all.subList(0, 50));
-        writeAll(all);
+    // Returns once the score is on disk. If the append fails the score still shows on this
+    // board (the next snapshot will include it) and the IOException is rethrown.
+    public void addScore(String name, int score) throws IOException {
+        addScores(List.of(new ScoreEntry(name, score)));
+    }
+
+    // Saves several scores with one append and one fsync
+    public synchronized void addScores(Collection<ScoreEntry> scores) throws IOException {
+        if (journal == null) {
+            if (dir == null) {
+                for (ScoreEntry s : scores) insert(new Entry(s.score(), nextSeq++, sanitize(s.name()), false));
+                return;
+            }
+            throw new IOException("high score board is closed");
+        }
+        withLock(() -> {
+            catchUp();
+            append(scores);
+        });
     }
 
     public synchronized List<ScoreEntry> getTopScores(int n) {
-        List<ScoreEntry> all = readAll();
-        all.sort((a, b) -> Integer.compare(b.score(), a.score()));
-        return all.subList(0, Math.min(n, all.size()));
-    }
-
-    private List<ScoreEntry> readAll() {
-        List<ScoreEntry> list = new ArrayList<>();
-        if (!Files.exists(storagePath)) return list;
-        try (BufferedReader br = Files.newBufferedReader(storagePath)) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(",", 2);
-                if (parts.length == 2) {
-                    String name = parts[0].trim();
-                    int score = Integer.parseInt(parts[1].trim());
-                    list.add(new ScoreEntry(name, score));
-                }
+        List<ScoreEntry> top = new ArrayList<>(Math.min(n, board.size()));
+        for (Entry e : board) {
+            if (top.size() >= n) break;
+            top.add(new ScoreEntry(e.name(), e.score(), e.ghost() ? ghostFile(e.seq()) : null));
+        }
+        return top;
+    }
+
+    public synchronized int size() { return board.size(); }
+
+    public int getCapacity() { return capacity; }
+
+    // Folds the journal into a fresh snapshot now instead of waiting for the compactor
+    public synchronized void compactNow() throws IOException {
+        if (journal == null) return;
+        withLock(() -> {
+            catchUp();
+            compact();
+        });
+    }
+
+    @Override
+    public void close() {
+        if (compactor != null) compactor.shutdownNow();
+        synchronized (this) {
+            closeFiles();
+        }
+    }
+
+    private Path ghostFile(long seq) {
+        return dir.resolve(GHOSTS).resolve(seq + ".nrr");
+    }
+
+    // Adds scores that make the board to memory and appends them to the journal; lock held.
+    // Ghost replays are copied before the append, so a saved flag always has its file.
+    private void append(Collection<ScoreEntry> scores) throws IOException {
+        List<Entry> accepted = new ArrayList<>(scores.size());
+        for (ScoreEntry s : scores) {
+            Entry e = new Entry(s.score(), nextSeq, sanitize(s.name()), false);
+            if (!ranks(e)) continue;
+            if (s.ghost() != null && keepGhost(s.ghost(), e.seq())) e = new Entry(e.score(), e.seq(), e.name(), true);
+            insert(e);
+            accepted.add(e);
+            nextSeq++;
+        }
+        if (accepted.isEmpty()) return;
+
+        GameEvents.HighScoreIo ev = new GameEvents.HighScoreIo();
+        ev.begin();
+        ByteBuffer buf = ByteBuffer.allocate(accepted.size() * RECORD_SIZE);
+        for (Entry e : accepted) encode(e, buf);
+        buf.flip();
+        long pos = journalEnd;
+        while (buf.hasRemaining()) pos += journal.write(buf, pos);
+        journal.force(false);
+        commit(ev, "append", JOURNAL, pos - journalEnd, accepted.size());
+        journalEnd = pos;
+        journalRecords += accepted.size();
+    }
+
+    // A failed copy costs the ghost, not the score
+    private boolean keepGhost(Path replay, long seq) {
+        try {
+            Path target = ghostFile(seq);
+            Files.createDirectories(target.getParent());
+            Files.copy(replay, target, StandardCopyOption.REPLACE_EXISTING);
+            return true;
+        } catch (IOException e) {
+            System.err.println("Ghost replay not kept: " + e);
+            return false;
+        }
+    }
+
+    // Puts an entry on the board if it ranks; a full board drops its lowest entry
+    private boolean insert(Entry e) {
+        if (!ranks(e)) return false;
+        if (board.size() >= capacity) board.pollLast();
+        board.add(e);
+        return true;
+    }
+
+    private boolean ranks(Entry e) {
+        return board.size() < capacity || RANKING.compare(e, board.last()) < 0;
+    }
+
+    // Picks up records other processes appended since our last look; lock held
+    private void catchUp() throws IOException {
+        if (journalGeneration() != generation || journal.size() < journalEnd) {
+            reload(); // another process compacted or recovered the journal
+        } else {
+            replayJournal();
+        }
+    }
+
+    // Rebuilds the board from snapshot + journal and repairs the journal; lock held
+    private void reload() throws IOException {
+        board.clear();
+        nextSeq = 0;
+        generation = 0;
+        readSnapshot();
+
+        long journalGen = journalGeneration();
+        if (journalGen < generation) {
+            // Missing, torn or already folded into the snapshot
+            resetJournal(generation);
+        } else {
+            generation = journalGen;
+            journalEnd = JOURNAL_HEADER;
+            journalRecords = 0;
+            replayJournal();
+        }
+    }
+
+    private void readSnapshot() throws IOException {
+        Path snap = dir.resolve(SNAPSHOT);
+        if (!Files.exists(snap)) return;
+        GameEvents.HighScoreIo ev = new GameEvents.HighScoreIo();
+        ev.begin();
+        ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(snap));
+        if (buf.remaining() < SNAPSHOT_HEADER || buf.getInt(0) != SNAPSHOT_MAGIC || !supported(buf.getInt(4))) {
+            throw new IOException("unrecognised high score snapshot " + snap);
+        }
+        generation = buf.getLong(8);
+        int count = buf.getInt(16);
+        buf.position(SNAPSHOT_HEADER);
+        for (int i = 0; i < count; i++) {
+            Entry e = decode(buf);
+            if (e == null) throw new IOException("corrupt high score snapshot " + snap + " at record " + i);
+            apply(e);
+        }
+        commit(ev, "readSnapshot", SNAPSHOT, buf.capacity(), count);
+    }
+
+    // Applies valid records from journalEnd on and cuts off a torn or corrupt tail
+    private void replayJournal() throws IOException {
+        long size = journal.size();
+        if (size <= journalEnd) return;
+        GameEvents.HighScoreIo ev = new GameEvents.HighScoreIo();
+        ev.begin();
+        ByteBuffer buf = ByteBuffer.allocate((int) (size - journalEnd));
+        while (buf.hasRemaining() && journal.read(buf, journalEnd + buf.position()) >= 0) { }
+        buf.flip();
+        int records = 0;
+        Entry e;
+        while ((e = decode(buf)) != null) {
+            apply(e);
+            journalEnd += RECORD_SIZE;
+            journalRecords++;
+            records++;
+        }
+        commit(ev, "replayJournal", JOURNAL, buf.limit(), records);
+        if (journalEnd < size) {
+            journal.truncate(journalEnd);
+            journal.force(true);
+        }
+    }
+
+    private void apply(Entry e) {
+        insert(e);
+        nextSeq = Math.max(nextSeq, e.seq() + 1);
+    }
+
+    private long journalGeneration() throws IOException {
+        if (journal.size() < JOURNAL_HEADER) return -1;
+        ByteBuffer h = ByteBuffer.allocate(JOURNAL_HEADER);
+        while (h.hasRemaining() && journal.read(h, h.position()) >= 0) { }
+        return h.getInt(0) == JOURNAL_MAGIC && supported(h.getInt(4)) ? h.getLong(8) : -1;
+    }
+
+    private static boolean supported(int version) {
+        return version >= 1 && version <= VERSION;
+    }
+
+    // Empties the journal for a generation. Records go first, so a crash in between leaves
+    // an empty journal of the old generation, which recovery resets again.
+    private void resetJournal(long gen) throws IOException {
+        journal.truncate(0);
+        journal.force(true);
+        ByteBuffer h = ByteBuffer.allocate(JOURNAL_HEADER);
+        h.putInt(JOURNAL_MAGIC).putInt(VERSION).putLong(gen).flip();
+        while (h.hasRemaining()) journal.write(h, h.position());
+        journal.force(true);
+        generation = gen;
+        journalEnd = JOURNAL_HEADER;
+        journalRecords = 0;
+    }
+
+    // Writes the board as the next generation's snapshot, then empties the journal; lock held
+    private void compact() throws IOException {
+        GameEvents.HighScoreIo ev = new GameEvents.HighScoreIo();
+        ev.begin();
+        long gen = generation + 1;
+        ByteBuffer buf = ByteBuffer.allocate(SNAPSHOT_HEADER + board.size() * RECORD_SIZE);
+        buf.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(gen).putInt(board.size());
+        for (Entry e : board) encode(e, buf);
+        buf.flip();
+
+        Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (buf.hasRemaining()) ch.write(buf);
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        syncDirectory();
+        resetJournal(gen);
+        commit(ev, "writeSnapshot", SNAPSHOT, buf.limit(), board.size());
+        dropOldGhosts();
+    }
+
+    // Deletes ghost replays of scores that have left the board (or whose append never landed)
+    private void dropOldGhosts() {
+        Path ghosts = dir.resolve(GHOSTS);
+        if (!Files.isDirectory(ghosts)) return;
+        Set<String> kept = new HashSet<>();
+        for (Entry e : board) {
+            if (e.ghost()) kept.add(e.seq() + ".nrr");
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(ghosts, "*.nrr")) {
+            for (Path f : files) {
+                if (!kept.contains(f.getFileName().toString())) Files.deleteIfExists(f);
+            }
+        } catch (IOException e) {
+            System.err.println("Old ghost replays not removed: " + e);
+        }
+    }
+
+    private static void commit(GameEvents.HighScoreIo ev, String operation, String file, long bytes, int records) {
+        if (!ev.shouldCommit()) return;
+        ev.operation = operation;
+        ev.file = file;
+        ev.bytes = bytes;
+        ev.records = records;
+        ev.commit();
+    }
+
+    private interface LockedIo {
+        void run() throws IOException;
+    }
+
+    // Runs `io` holding the directory lock, which other processes sharing the directory take too
+    private void withLock(LockedIo io) throws IOException {
+        FileLock lock = lockFile.lock();
+        try {
+            io.run();
+        } finally {
+            lock.release();
+        }
+    }
+
+    private void compactIfNeeded() {
+        synchronized (this) {
+            if (journal == null || journalRecords < COMPACT_AFTER) return;
+            try {
+                withLock(() -> {
+                    catchUp();
+                    if (journalRecords >= COMPACT_AFTER) compact();
+                });
+            } catch (IOException e) {
+                // The journal is still intact; try again next period
+                System.err.println("High score compaction failed: " + e);
             }
-        } catch (Exception ignored) { }
-        return list;
+        }
     }
 
-    private void writeAll(List<ScoreEntry> list) {
-        try (BufferedWriter bw = Files.newBufferedWriter(storagePath)) {
-            for (ScoreEntry e : list) {
-                bw.write(e.name() + "," + e.score());
-                bw.newLine();
+    // Makes the rename durable; not every platform can open a directory, which is fine
+    private void syncDirectory() {
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        } catch (IOException ignored) { }
+    }
+
+    // First start with this format: bring over the board written by older versions; lock held
+    private void importLegacy() throws IOException {
+        List<ScoreEntry> old = new ArrayList<>();
+        Path mapped = dir.resolve("highscores.dat");
+        Path text = dir.resolve("highscores.txt");
+        if (Files.exists(mapped)) {
+            // Fixed-record board: 32-byte header (magic "NRHS", count at 12), 64-byte records
+            // (score, seq, name length, name chars); import in insertion order to keep ties stable
+            ByteBuffer buf = ByteBuffer.wrap(Files.readAllBytes(mapped));
+            if (buf.remaining() >= 32 && buf.getInt(0) == 0x4E524853) {
+                int count = Math.min(buf.getInt(12), (buf.remaining() - 32) / 64);
+                List<Entry> entries = new ArrayList<>(count);
+                for (int slot = 0; slot < count; slot++) {
+                    int base = 32 + slot * 64;
+                    int len = Math.max(0, Math.min(buf.getShort(base + 12), MAX_NAME));
+                    char[] name = new char[len];
+                    for (int i = 0; i < len; i++) name[i] = buf.getChar(base + 14 + i * 2);
+                    entries.add(new Entry(buf.getInt(base), buf.getLong(base + 4), new String(name), false));
+                }
+                entries.sort(Comparator.comparingLong(Entry::seq));
+                for (Entry e : entries) old.add(new ScoreEntry(e.name(), e.score()));
             }
+        } else if (Files.exists(text)) {
+            try (BufferedReader br = Files.newBufferedReader(text)) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    String[] parts = line.split(",", 2);
+                    if (parts.length == 2) {
+                        try {
+                            old.add(new ScoreEntry(parts[0].trim(), Integer.parseInt(parts[1].trim())));
+                        } catch (NumberFormatException ignored) { }
+                    }
+                }
+            }
+        }
+        if (!old.isEmpty()) append(old);
+    }
+
+    private static void encode(Entry e, ByteBuffer buf) {
+        int start = buf.position();
+        buf.putLong(e.seq()).putInt(e.score()).putShort((short) (e.name().length() | (e.ghost() ? GHOST_FLAG : 0)));
+        for (int i = 0; i < MAX_NAME; i++) buf.putChar(i < e.name().length() ? e.name().charAt(i) : 0);
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), start, CRC_OFFSET);
+        buf.putInt((int) crc.getValue());
+    }
+
+    // Next record, or null at the end of the buffer or at a record whose checksum does not match
+    private static Entry decode(ByteBuffer buf) {
+        if (buf.remaining() < RECORD_SIZE) return null;
+        int start = buf.position();
+        CRC32 crc = new CRC32();
+        crc.update(buf.array(), start, CRC_OFFSET);
+        if ((int) crc.getValue() != buf.getInt(start + CRC_OFFSET)) return null;
+
+        long seq = buf.getLong();
+        int score = buf.getInt();
+        int lenAndFlags = buf.getShort();
+        int len = Math.max(0, Math.min(lenAndFlags & ~GHOST_FLAG, MAX_NAME));
+        char[] name = new char[MAX_NAME];
+        for (int i = 0; i < MAX_NAME; i++) name[i] = buf.getChar();
+        buf.getInt();
+        return new Entry(score, seq, new String(name, 0, len), (lenAndFlags & GHOST_FLAG) != 0);
+    }
+
+    private void closeFiles() {
+        try {
+            if (journal != null) journal.close();
+            if (lockFile != null) lockFile.close();
         } catch (IOException ignored) { }
+        journal = null;
+        lockFile = null;
     }
 
-    private String sanitize(String s) {
+    static String sanitize(String s) {
         if (s == null) return "Player";
         String t = s.replaceAll("[,\\n\\r]", " ").trim();
         if (t.isEmpty()) t = "Player";
-        if (t.length() > 20) t = t.substring(0, 20);
+        if (t.length() > MAX_NAME) t = t.substring(0, MAX_NAME);
         return t;
     }
-}
\ No newline at end of file
+}
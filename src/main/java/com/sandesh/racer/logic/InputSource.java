@@ -0,0 +1,9 @@
+package com.sandesh.racer.logic;
+
+// Supplies the steering buttons held for the next simulation tick (keyboard, bot, replay, ...)
+public interface InputSource {
+    int LEFT = 1;
+    int RIGHT = 2;
+
+    int poll(GameSimulation sim);
+}
@@ -0,0 +1,164 @@
+package com.sandesh.racer.logic;
+
+// Beam search over held steering: from a state it tries nothing, LEFT and RIGHT, each held for
+// MACRO_TICKS ticks, keeps the `beam` best of the resulting states and expands those again, up to
+// `depth` stretches ahead. States are ranked by survival first (a later crash beats an earlier
+// one), then by the free road ahead of the player. The first stretch of the best line is the
+// decision. Traffic does not depend on the player, so states at the same depth differ only in the
+// player's x: candidates that end up at the same x are the same state and only the first is kept,
+// which stops steering into the road's edge from filling the beam with copies. Every state lives
+// in a simulation allocated up front and refilled with copyFrom, so planning allocates nothing;
+// use one planner per thread.
+public class LookaheadPlanner {
+
+    public static final int MACRO_TICKS = 6; // ticks an action is held for, 0.1 s at 60 Hz
+
+    private static final int[] ACTIONS = {0, InputSource.LEFT, InputSource.RIGHT}; // ties go to the first
+    private static final double CRASHED = -1e9;   // plus the crash tick, so later crashes rank higher
+    private static final double DUPLICATE = Double.NEGATIVE_INFINITY;
+    private static final double HORIZON = 700;    // px; free road beyond this counts the same
+    private static final double CENTER_BONUS = 40;
+    private static final double STRADDLE_COST = 1; // per px off a lane center, half a car on two lanes is a risk
+
+    private final int beam;
+    private final int depth;
+    private final double dtMillis;
+
+    // Beam states and their candidates for the next level; references are swapped, never copied
+    private final GameSimulation[] states;
+    private final int[] stateFirst;
+    private final GameSimulation[] candidates;
+    private final int[] candidateFirst;
+    private final double[] candidateValue;
+    private int stateCount;
+
+    public LookaheadPlanner(int beam, int depth, double dtMillis, DifficultyCurve curve) {
+        if (beam < 1 || depth < 1) throw new IllegalArgumentException("beam and depth must be positive");
+        this.beam = beam;
+        this.depth = depth;
+        this.dtMillis = dtMillis;
+        states = new GameSimulation[beam];
+        stateFirst = new int[beam];
+        candidates = new GameSimulation[beam * ACTIONS.length];
+        candidateFirst = new int[candidates.length];
+        candidateValue = new double[candidates.length];
+        for (int i = 0; i < states.length; i++) states[i] = scratch(curve);
+        for (int i = 0; i < candidates.length; i++) candidates[i] = scratch(curve);
+    }
+
+    private static GameSimulation scratch(DifficultyCurve curve) {
+        GameSimulation s = new GameSimulation(0, curve);
+        s.getOpponentManager().setEventsEnabled(false);
+        return s;
+    }
+
+    // Action to hold for the next MACRO_TICKS ticks from `root`, which is left untouched. Levels
+    // are searched until `depth` or until System.nanoTime() passes the deadline, whichever is
+    // first; at least one level is always searched.
+    public int plan(GameSimulation root, long deadlineNanos) {
+        return plan(root, true, deadlineNanos);
+    }
+
+    // Searches all `depth` levels however long it takes, so a state always gets the same action
+    public int plan(GameSimulation root) {
+        return plan(root, false, 0);
+    }
+
+    private int plan(GameSimulation root, boolean timed, long deadlineNanos) {
+        int n = 0;
+        for (int a : ACTIONS) {
+            expand(n++, root, a, a);
+        }
+        select(n);
+
+        for (int d = 1; d < depth && (!timed || System.nanoTime() - deadlineNanos < 0); d++) {
+            n = 0;
+            for (int i = 0; i < stateCount; i++) {
+                GameSimulation s = states[i];
+                if (s.isCrashed()) {
+                    expand(n++, s, 0, stateFirst[i]); // no way out from here, keep it to rank
+                    continue;
+                }
+                for (int a : ACTIONS) {
+                    expand(n++, s, a, stateFirst[i]);
+                }
+            }
+            select(n);
+        }
+        return stateFirst[0];
+    }
+
+    private void expand(int slot, GameSimulation from, int action, int first) {
+        GameSimulation s = candidates[slot];
+        s.copyFrom(from);
+        for (int k = 0; k < MACRO_TICKS && s.step(dtMillis, action); k++) { }
+        candidateFirst[slot] = first;
+        candidateValue[slot] = evaluate(s);
+    }
+
+    // Moves the best `beam` of n candidates into the beam, best first; earlier candidates win ties
+    private void select(int n) {
+        int distinct = 0;
+        for (int j = 0; j < n; j++) {
+            GameSimulation s = candidates[j];
+            for (int k = 0; k < j; k++) {
+                if (candidateValue[k] != DUPLICATE && candidates[k].getPlayerX() == s.getPlayerX()
+                        && candidates[k].isCrashed() == s.isCrashed()) {
+                    candidateValue[j] = DUPLICATE;
+                    break;
+                }
+            }
+            if (candidateValue[j] != DUPLICATE) distinct++;
+        }
+        int keep = Math.min(beam, distinct);
+        for (int i = 0; i < keep; i++) {
+            int best = i;
+            for (int j = i + 1; j < n; j++) {
+                if (candidateValue[j] > candidateValue[best]) best = j;
+            }
+            swapCandidates(i, best);
+            GameSimulation s = states[i];
+            states[i] = candidates[i];
+            candidates[i] = s;
+            stateFirst[i] = candidateFirst[i];
+        }
+        stateCount = keep;
+    }
+
+    private void swapCandidates(int i, int j) {
+        if (i == j) return;
+        GameSimulation s = candidates[i];
+        candidates[i] = candidates[j];
+        candidates[j] = s;
+        int f = candidateFirst[i];
+        candidateFirst[i] = candidateFirst[j];
+        candidateFirst[j] = f;
+        double v = candidateValue[i];
+        candidateValue[i] = candidateValue[j];
+        candidateValue[j] = v;
+    }
+
+    private static double evaluate(GameSimulation s) {
+        if (s.isCrashed()) return CRASHED + s.getCollisionTick();
+
+        // Free road ahead of the player: the nearest car not yet behind it that overlaps its x span
+        OpponentManager om = s.getOpponentManager();
+        double left = s.getPlayerX(), right = left + GameSimulation.PLAYER_WIDTH;
+        double top = GameSimulation.PLAYER_Y, bottom = top + GameSimulation.PLAYER_HEIGHT;
+        double gap = HORIZON;
+        for (int i = 0, n = om.getOpponentCount(); i < n; i++) {
+            double y = om.getOpponentY(i);
+            if (y >= bottom) continue;
+            double x = om.getOpponentX(i);
+            if (x >= right || x + om.getOpponentWidth(i) <= left) continue;
+            gap = Math.min(gap, top - (y + om.getOpponentHeight(i)));
+        }
+
+        int laneWidth = GameSimulation.ROAD_WIDTH / GameSimulation.LANES;
+        double center = left + GameSimulation.PLAYER_WIDTH / 2.0 - GameSimulation.ROAD_X;
+        int lane = Math.max(0, Math.min(GameSimulation.LANES - 1, (int) (center / laneWidth)));
+        double offCenter = Math.abs(center - (lane * laneWidth + laneWidth / 2.0));
+        double value = gap - STRADDLE_COST * offCenter;
+        return lane == GameSimulation.LANES / 2 ? value + CENTER_BONUS : value;
+    }
+}
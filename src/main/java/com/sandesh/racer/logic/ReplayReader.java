@@ -0,0 +1,124 @@
+package com.sandesh.racer.logic;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+// Plays back a file written by ReplayWriter as an InputSource, reading records only as the
+// simulation reaches them. A file cut short (the game was killed) plays up to where it stops.
+public class ReplayReader implements InputSource, Closeable {
+
+    // Outcome of re-simulating a replay; expected values are -1 when the file has no end record
+    public record Verification(boolean complete, long expectedTicks, int expectedScore, int expectedLevel,
+                               boolean expectedCrash, GameSimulation.Result result) {
+        public boolean matches() {
+            return complete && result.ticks() == expectedTicks && result.score() == expectedScore
+                    && result.level() == expectedLevel && result.crashed() == expectedCrash;
+        }
+    }
+
+    private final DataInputStream in;
+    private final long seed;
+    private final double tickMillis;
+    private final String playerName;
+
+    private int buttons = 0;
+    private long nextTick;     // tick at which nextButtons apply, or the end tick
+    private int nextButtons;
+    private boolean atEnd = false;  // nextTick is the end record (or the last tick of a cut-off file)
+    private boolean complete = false;
+    private boolean endCrashed;
+    private int endScore = -1;
+    private int endLevel = -1;
+
+    public ReplayReader(Path file) throws IOException {
+        in = new DataInputStream(new GZIPInputStream(new BufferedInputStream(Files.newInputStream(file))));
+        try {
+            if (in.readInt() != ReplayWriter.MAGIC) throw new IOException("not a replay file: " + file);
+            int version = in.readUnsignedByte();
+            if (version != ReplayWriter.VERSION) throw new IOException("unsupported replay version " + version);
+            seed = in.readLong();
+            tickMillis = in.readDouble();
+            playerName = in.readUTF();
+            readNext();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    public long getSeed() { return seed; }
+    public double getTickMillis() { return tickMillis; }
+    public String getPlayerName() { return playerName; }
+
+    // Simulation built the same way as the recorded one
+    public GameSimulation newSimulation() {
+        return new GameSimulation(seed);
+    }
+
+    @Override
+    public int poll(GameSimulation sim) {
+        return buttonsAt(sim.getTick());
+    }
+
+    // Buttons held for the step at `tick`; ticks must not go backwards
+    public int buttonsAt(long tick) {
+        while (!atEnd && nextTick <= tick) {
+            buttons = nextButtons;
+            readNext();
+        }
+        return buttons;
+    }
+
+    // True once the recorded game has been played to its last tick
+    public boolean isFinished(long tick) {
+        return atEnd && tick >= nextTick;
+    }
+
+    private void readNext() {
+        try {
+            long v = readVarint();
+            nextTick += v >>> ReplayWriter.BUTTON_BITS;
+            int flags = (int) (v & ((1 << ReplayWriter.BUTTON_BITS) - 1));
+            if ((flags & ReplayWriter.END) != 0) {
+                endCrashed = in.readBoolean();
+                endScore = (int) readVarint();
+                endLevel = (int) readVarint();
+                complete = true;
+                atEnd = true;
+            } else {
+                nextButtons = flags;
+            }
+        } catch (IOException e) {
+            atEnd = true; // cut off: keep the last buttons up to the last known tick
+        }
+    }
+
+    private long readVarint() throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.readUnsignedByte();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("malformed varint");
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    // Re-runs a replay headless as fast as possible and compares with the recorded result
+    public static Verification verify(Path file) throws IOException {
+        try (ReplayReader r = new ReplayReader(file)) {
+            GameSimulation sim = r.newSimulation();
+            while (!sim.isCrashed() && !r.isFinished(sim.getTick())) {
+                sim.step(r.getTickMillis(), r.poll(sim));
+            }
+            return new Verification(r.complete, r.complete ? r.nextTick : -1, r.endScore, r.endLevel,
+                    r.endCrashed, sim.result());
+        }
+    }
+}
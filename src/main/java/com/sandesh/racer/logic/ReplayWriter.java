@@ -0,0 +1,114 @@
+package com.sandesh.racer.logic;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+// Streams a game to a replay file as it is played: the seed and tick length up front, then a
+// varint per change of the held buttons, (ticks since the last record << 3) | buttons, and an
+// end record with the result. Nothing is kept in memory, so long sessions cost no heap.
+//
+// File: gzip( int magic "NRRP", byte version, long seed, double tick millis, UTF player name,
+//             varint records..., varint (delta << 3) | END, byte crashed, varint score, varint level )
+public class ReplayWriter implements Closeable {
+
+    static final int MAGIC = 0x4E525250; // "NRRP"
+    static final int VERSION = 1;
+    static final int END = 4;
+    static final int BUTTON_BITS = 3;
+
+    // Recent games go to ~/.neon-rush/replays unless -Dneonrush.replays=false; the newest
+    // -Dneonrush.replayKeep (20) files are kept
+    public static final boolean ENABLED = !"false".equals(System.getProperty("neonrush.replays"));
+    private static final int KEEP = Integer.getInteger("neonrush.replayKeep", 20);
+    private static final long FLUSH_TICKS = 600; // push compressed data to disk every ~10 s of play
+
+    private final Path file;
+    private final DataOutputStream out;
+    private long lastTick = 0;
+    private long lastFlushTick = 0;
+    private int buttons = 0;
+    private boolean finished = false;
+
+    public ReplayWriter(Path file, long seed, double tickMillis, String playerName) throws IOException {
+        this.file = file;
+        // Sync flush, so everything up to the last flush survives a crash of the game
+        out = new DataOutputStream(new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 4096, true));
+        try {
+            out.writeInt(MAGIC);
+            out.writeByte(VERSION);
+            out.writeLong(seed);
+            out.writeDouble(tickMillis);
+            out.writeUTF(playerName == null ? "" : playerName);
+        } catch (IOException e) {
+            out.close();
+            throw e;
+        }
+    }
+
+    // New file named after the current time in the replay directory, pruning the oldest replays
+    public static Path newReplayFile() throws IOException {
+        Path dir = Path.of(System.getProperty("user.home"), ".neon-rush", "replays");
+        Files.createDirectories(dir);
+        List<Path> old = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> p.getFileName().toString().endsWith(".nrr")).forEach(old::add);
+        }
+        old.sort(Comparator.comparing(p -> p.getFileName().toString()));
+        for (int i = 0; i < old.size() - (KEEP - 1); i++) Files.deleteIfExists(old.get(i));
+        String stamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS"));
+        return dir.resolve("replay-" + stamp + ".nrr");
+    }
+
+    public Path getFile() { return file; }
+
+    // Buttons held for the step that runs at `tick` (ticks already simulated); call every tick
+    public void record(long tick, int held) throws IOException {
+        if (held != buttons) {
+            writeVarint(((tick - lastTick) << BUTTON_BITS) | held);
+            lastTick = tick;
+            buttons = held;
+        }
+        if (tick - lastFlushTick >= FLUSH_TICKS) {
+            out.flush();
+            lastFlushTick = tick;
+        }
+    }
+
+    // Writes the end record and closes the file
+    public void finish(GameSimulation.Result result) throws IOException {
+        if (finished) return;
+        finished = true;
+        try {
+            writeVarint(((result.ticks() - lastTick) << BUTTON_BITS) | END);
+            out.writeBoolean(result.crashed());
+            writeVarint(result.score());
+            writeVarint(result.level());
+        } finally {
+            out.close();
+        }
+    }
+
+    // Closes without an end record, e.g. when a game is abandoned; readers see it as incomplete
+    @Override
+    public void close() throws IOException {
+        if (finished) return;
+        finished = true;
+        out.close();
+    }
+
+    private void writeVarint(long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.writeByte((int) (v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.writeByte((int) v);
+    }
+}
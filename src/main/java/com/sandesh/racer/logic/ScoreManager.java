@@ -4,8 +4,10 @@ public class ScoreManager {
     private int score = 0;
     private double timeAccumulator = 0; // millis
     private float dashPhase = 0f;
+    private float prevDashPhase = 0f; // for render interpolation
 
     public void update(double dtMillis, double speedFactor) {
+        prevDashPhase = dashPhase;
         timeAccumulator += dtMillis;
         // Every 100ms, add points scaled by speed/difficulty
         while (timeAccumulator >= 100) {
@@ -15,7 +17,24 @@ public class ScoreManager {
 
         // Animate lane dash offset for visual movement
         dashPhase += (float) (dtMillis * 0.08);
-        if (dashPhase > 40_000) dashPhase = 0;
+        if (dashPhase > 40_000) {
+            prevDashPhase -= dashPhase;
+            dashPhase = 0;
+        }
+    }
+
+    public void saveTo(SimulationState s) {
+        s.score = score;
+        s.timeAccumulator = timeAccumulator;
+        s.dashPhase = dashPhase;
+        s.prevDashPhase = prevDashPhase;
+    }
+
+    public void restoreFrom(SimulationState s) {
+        score = s.score;
+        timeAccumulator = s.timeAccumulator;
+        dashPhase = s.dashPhase;
+        prevDashPhase = s.prevDashPhase;
     }
 
     public int getScore() { return score; }
@@ -23,4 +42,8 @@ public class ScoreManager {
     public void addPoints(int pts) { score += Math.max(0, pts); }
 
     public float getDashPhase() { return dashPhase; }
+
+    public float getDashPhase(double alpha) {
+        return (float) (prevDashPhase + (dashPhase - prevDashPhase) * alpha);
+    }
 }
\ No newline at end of file
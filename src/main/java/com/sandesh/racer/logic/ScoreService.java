@@ -0,0 +1,154 @@
+package com.sandesh.racer.logic;
+
+import com.sandesh.racer.logic.HighScoreManager.ScoreEntry;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Saves high scores on a single writer thread so no caller (the EDT in particular) waits on
+// the disk. Submissions arriving within BATCH_MILLIS of each other share one journal append.
+// The last known board is cached, so callers can show a provisional ranking right away.
+public class ScoreService implements AutoCloseable {
+
+    private static final long BATCH_MILLIS = 25;
+    private static final int CACHED_SCORES = 100;
+
+    // Top scores once the submission is handled; durable is false if the board is memory only
+    public record Ranked(int rank, List<ScoreEntry> topScores, boolean durable) {}
+
+    private record Pending(ScoreEntry entry, CompletableFuture<Ranked> result) {}
+
+    private final int topN;
+    private final ScheduledExecutorService writer;
+    private final ConcurrentLinkedQueue<Pending> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    // Only touched on the writer thread
+    private HighScoreManager manager;
+    private boolean durable;
+
+    // Written by the writer thread, read by anyone
+    private volatile List<ScoreEntry> cachedTop = List.of();
+
+    public ScoreService(int topN) {
+        this(topN, HighScoreManager::new);
+    }
+
+    // The opener runs on the writer thread; if it fails the board is kept in memory only
+    public ScoreService(int topN, Callable<HighScoreManager> opener) {
+        this.topN = topN;
+        this.writer = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "score-writer");
+            t.setDaemon(true);
+            return t;
+        });
+        writer.execute(() -> {
+            try {
+                manager = opener.call();
+                durable = true;
+            } catch (Exception e) {
+                System.err.println("High scores unavailable, keeping them for this session only: " + e);
+                manager = HighScoreManager.inMemory(HighScoreManager.DEFAULT_CAPACITY);
+            }
+            cachedTop = manager.getTopScores(CACHED_SCORES);
+        });
+    }
+
+    public static ScoreService open(Path dir, int capacity, int topN) {
+        return new ScoreService(topN, () -> new HighScoreManager(dir, capacity));
+    }
+
+    public CompletableFuture<Ranked> submit(String name, int score) {
+        return submit(name, score, null);
+    }
+
+    // Completes once the score is on disk, or exceptionally with the IOException (or any other
+    // failure) that stopped it. The replay, if any, is kept as the run's ghost when the score
+    // makes the board.
+    public CompletableFuture<Ranked> submit(String name, int score, Path replay) {
+        Pending p = new Pending(new ScoreEntry(HighScoreManager.sanitize(name), score, replay), new CompletableFuture<>());
+        queue.add(p);
+        if (flushScheduled.compareAndSet(false, true)) {
+            try {
+                writer.schedule(this::flush, BATCH_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                p.result().completeExceptionally(new IOException("score service is closed"));
+            }
+        }
+        return p.result();
+    }
+
+    // Top n from the last known board with every unsaved submission ranked in; never blocks
+    public List<ScoreEntry> preview(int n) {
+        List<ScoreEntry> board = new ArrayList<>(cachedTop);
+        for (Pending p : queue) insertRanked(board, p.entry());
+        return board.subList(0, Math.min(n, board.size()));
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        // Leave the batch queued until the cache has it, so previews never lose a score
+        List<Pending> batch = new ArrayList<>(queue);
+        if (batch.isEmpty()) return;
+
+        List<ScoreEntry> entries = new ArrayList<>(batch.size());
+        for (Pending p : batch) entries.add(p.entry());
+        // Any failure, not just I/O, has to reach the waiting futures or the game over screen
+        // shows "saving" forever
+        Exception failure = null;
+        try {
+            manager.addScores(entries);
+        } catch (IOException | RuntimeException e) {
+            failure = e;
+        }
+        // Scores stay on the in-memory board even if the append failed
+        List<ScoreEntry> top = manager.getTopScores(CACHED_SCORES);
+        cachedTop = top;
+        for (int i = 0; i < batch.size(); i++) queue.poll();
+
+        for (Pending p : batch) {
+            if (failure != null) {
+                p.result().completeExceptionally(failure);
+            } else {
+                List<ScoreEntry> shown = top.subList(0, Math.min(topN, top.size()));
+                p.result().complete(new Ranked(rankOf(shown, p.entry()), List.copyOf(shown), durable));
+            }
+        }
+    }
+
+    // Equal scores rank in submission order, so a new score goes after the ones it ties with
+    private static void insertRanked(List<ScoreEntry> board, ScoreEntry e) {
+        int i = 0;
+        while (i < board.size() && board.get(i).score() >= e.score()) i++;
+        board.add(i, e);
+    }
+
+    // 1-based position of the latest entry with e's name and score, or -1 if it is not shown
+    private static int rankOf(List<ScoreEntry> top, ScoreEntry e) {
+        for (int i = top.size() - 1; i >= 0; i--) {
+            if (top.get(i).score() == e.score() && top.get(i).name().equals(e.name())) return i + 1;
+        }
+        return -1;
+    }
+
+    // Writes everything already submitted, then releases the board
+    @Override
+    public void close() {
+        if (writer.isShutdown()) return;
+        writer.execute(this::flush);
+        writer.shutdown();
+        try {
+            if (!writer.awaitTermination(2, TimeUnit.SECONDS)) writer.shutdownNow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Pending p; (p = queue.poll()) != null; ) {
+            p.result().completeExceptionally(new IOException("score service is closed"));
+        }
+        if (manager != null) manager.close();
+    }
+}
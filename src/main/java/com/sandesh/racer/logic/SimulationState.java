@@ -0,0 +1,214 @@
+package com.sandesh.racer.logic;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// Everything that decides how a GameSimulation plays on, saved into flat primitive buffers:
+// the cars, each lane's cars top to bottom, the spawn and difficulty timers, level, score
+// accumulators, the random generator's state and the player. Saving and restoring are linear in
+// the number of cars, and one state reused for many saves allocates nothing once its buffers
+// have grown to the busiest traffic saved into it. The difficulty curve and the road are not
+// part of it: restore into a simulation built with the same ones.
+//
+// Stream form for save games: int magic "NRSS", byte version, int lanes, int cars, the scalars,
+// then per car x, y, prevY, speed, width, height, palette, then per lane size, passed and slots.
+public final class SimulationState {
+
+    static final int MAGIC = 0x4E525353; // "NRSS"
+    static final int VERSION = 1;
+    // Far beyond any real game; a stream claiming more is not one, and is refused before allocating
+    static final int MAX_LANES = 64;
+    static final int MAX_CARS = 1 << 16;
+
+    // Simulation
+    long seed;
+    double playerX;
+    double prevPlayerX;
+    double pulseMs;
+    double wheelPhase;
+    long tick;
+    long collisionTick;
+
+    // Score
+    int score;
+    double timeAccumulator;
+    float dashPhase;
+    float prevDashPhase;
+
+    // Traffic: cars in slot order, and each lane as the slots of its cars top to bottom
+    int cars;
+    double[] x = new double[0];
+    double[] y = new double[0];
+    double[] prevY = new double[0];
+    double[] speed = new double[0];
+    int[] width = new int[0];
+    int[] height = new int[0];
+    int[] palette = new int[0];
+    int lanes;
+    int[] laneSize = new int[0];
+    int[] lanePassed = new int[0];
+    int[] laneCars = new int[0]; // lane after lane, laneSize[l] slots each
+    int maxCarWidth;
+    int maxCarHeight;
+    long rngState;
+    double spawnTimer;
+    double spawnInterval;
+    double baseSpeed;
+    double globalSpeed;
+    int level;
+    double difficultyTimer;
+    int passedCounter;
+
+    public long getTick() { return tick; }
+
+    public int getCarCount() { return cars; }
+
+    // Room for n cars and the given lanes, keeping the buffers when they are big enough
+    void ensureCapacity(int n, int laneCount) {
+        if (x.length < n) {
+            int cap = Math.max(n, x.length * 2);
+            x = new double[cap];
+            y = new double[cap];
+            prevY = new double[cap];
+            speed = new double[cap];
+            width = new int[cap];
+            height = new int[cap];
+            palette = new int[cap];
+            laneCars = new int[cap];
+        }
+        if (laneSize.length != laneCount) {
+            laneSize = new int[laneCount];
+            lanePassed = new int[laneCount];
+        }
+        lanes = laneCount;
+        cars = n;
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeInt(lanes);
+        out.writeInt(cars);
+
+        out.writeLong(seed);
+        out.writeDouble(playerX);
+        out.writeDouble(prevPlayerX);
+        out.writeDouble(pulseMs);
+        out.writeDouble(wheelPhase);
+        out.writeLong(tick);
+        out.writeLong(collisionTick);
+        out.writeInt(score);
+        out.writeDouble(timeAccumulator);
+        out.writeFloat(dashPhase);
+        out.writeFloat(prevDashPhase);
+        out.writeInt(maxCarWidth);
+        out.writeInt(maxCarHeight);
+        out.writeLong(rngState);
+        out.writeDouble(spawnTimer);
+        out.writeDouble(spawnInterval);
+        out.writeDouble(baseSpeed);
+        out.writeDouble(globalSpeed);
+        out.writeInt(level);
+        out.writeDouble(difficultyTimer);
+        out.writeInt(passedCounter);
+
+        for (int i = 0; i < cars; i++) {
+            out.writeDouble(x[i]);
+            out.writeDouble(y[i]);
+            out.writeDouble(prevY[i]);
+            out.writeDouble(speed[i]);
+            out.writeInt(width[i]);
+            out.writeInt(height[i]);
+            out.writeInt(palette[i]);
+        }
+        for (int l = 0; l < lanes; l++) {
+            out.writeInt(laneSize[l]);
+            out.writeInt(lanePassed[l]);
+        }
+        for (int k = 0; k < cars; k++) out.writeInt(laneCars[k]);
+    }
+
+    // Replaces this state with one written by writeTo
+    public void readFrom(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) throw new IOException("not a saved game state");
+        int version = in.readUnsignedByte();
+        if (version != VERSION) throw new IOException("unsupported game state version " + version);
+        int laneCount = in.readInt();
+        int n = in.readInt();
+        if (laneCount <= 0 || laneCount > MAX_LANES || n < 0 || n > MAX_CARS) {
+            throw new IOException("not a saved game state");
+        }
+        ensureCapacity(n, laneCount);
+
+        seed = in.readLong();
+        playerX = in.readDouble();
+        prevPlayerX = in.readDouble();
+        pulseMs = in.readDouble();
+        wheelPhase = in.readDouble();
+        tick = in.readLong();
+        collisionTick = in.readLong();
+        score = in.readInt();
+        timeAccumulator = in.readDouble();
+        dashPhase = in.readFloat();
+        prevDashPhase = in.readFloat();
+        maxCarWidth = in.readInt();
+        maxCarHeight = in.readInt();
+        rngState = in.readLong();
+        spawnTimer = in.readDouble();
+        spawnInterval = in.readDouble();
+        baseSpeed = in.readDouble();
+        globalSpeed = in.readDouble();
+        level = in.readInt();
+        difficultyTimer = in.readDouble();
+        passedCounter = in.readInt();
+
+        for (int i = 0; i < n; i++) {
+            x[i] = in.readDouble();
+            y[i] = in.readDouble();
+            prevY[i] = in.readDouble();
+            speed[i] = in.readDouble();
+            width[i] = in.readInt();
+            height[i] = in.readInt();
+            palette[i] = in.readInt();
+        }
+        int total = 0;
+        for (int l = 0; l < laneCount; l++) {
+            laneSize[l] = in.readInt();
+            lanePassed[l] = in.readInt();
+            if (laneSize[l] < 0 || lanePassed[l] < 0 || lanePassed[l] > laneSize[l]) {
+                throw new IOException("corrupt game state: lane " + l);
+            }
+            total += laneSize[l];
+        }
+        if (total != n) throw new IOException("corrupt game state: lanes hold " + total + " of " + n + " cars");
+        for (int k = 0; k < n; k++) {
+            int slot = in.readInt();
+            if (slot < 0 || slot >= n) throw new IOException("corrupt game state: car slot " + slot);
+            laneCars[k] = slot;
+        }
+    }
+
+    // Same saved game, value for value; only the used part of the buffers counts
+    public boolean sameAs(SimulationState o) {
+        return seed == o.seed && playerX == o.playerX && prevPlayerX == o.prevPlayerX && pulseMs == o.pulseMs
+                && wheelPhase == o.wheelPhase && tick == o.tick && collisionTick == o.collisionTick
+                && score == o.score && timeAccumulator == o.timeAccumulator && dashPhase == o.dashPhase
+                && prevDashPhase == o.prevDashPhase && cars == o.cars && lanes == o.lanes
+                && maxCarWidth == o.maxCarWidth && maxCarHeight == o.maxCarHeight && rngState == o.rngState
+                && spawnTimer == o.spawnTimer && spawnInterval == o.spawnInterval && baseSpeed == o.baseSpeed
+                && globalSpeed == o.globalSpeed && level == o.level && difficultyTimer == o.difficultyTimer
+                && passedCounter == o.passedCounter
+                && Arrays.equals(x, 0, cars, o.x, 0, cars)
+                && Arrays.equals(y, 0, cars, o.y, 0, cars)
+                && Arrays.equals(prevY, 0, cars, o.prevY, 0, cars)
+                && Arrays.equals(speed, 0, cars, o.speed, 0, cars)
+                && Arrays.equals(width, 0, cars, o.width, 0, cars)
+                && Arrays.equals(height, 0, cars, o.height, 0, cars)
+                && Arrays.equals(palette, 0, cars, o.palette, 0, cars)
+                && Arrays.equals(laneSize, 0, lanes, o.laneSize, 0, lanes)
+                && Arrays.equals(lanePassed, 0, lanes, o.lanePassed, 0, lanes)
+                && Arrays.equals(laneCars, 0, cars, o.laneCars, 0, cars);
+    }
+}
@@ -1,59 +1,103 @@
 package com.sandesh.racer.model;
 
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.UiUtils;
+
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.RoundRectangle2D;
-import java.util.Random;
-
-public class OpponentCar {
-    private static final Random RNG = new Random();
-
-    private double x;
-    private double y;
-    private final int width;
-    private final int height;
-    private double speed;
-    private boolean countedPass = false;
-
-    private final Color body;
-    private final Color trim;
-
-    public OpponentCar(double x, double y, int width, int height, double speed) {
-        this.x = x; this.y = y;
-        this.width = width; this.height = height;
-        this.speed = speed;
-
-        // Neon palette
-        Color[] palettes = {
-                new Color(255, 110, 150), // pink
-                new Color(255, 180, 60),  // orange
-                new Color(160, 255, 120), // lime
-                new Color(120, 180, 255), // blue
-                new Color(255, 120, 220)  // magenta
-        };
-        body = palettes[RNG.nextInt(palettes.length)];
-        trim = new Color(255, 255, 255, 180);
+import java.awt.image.BufferedImage;
+
+// Opponent rendering; the cars themselves live as primitive arrays in OpponentManager
+public final class OpponentCar {
+    private static final int SPRITE_KIND = 1;
+
+    // Neon palette
+    private static final Color[] PALETTE = {
+            new Color(255, 110, 150), // pink
+            new Color(255, 180, 60),  // orange
+            new Color(160, 255, 120), // lime
+            new Color(120, 180, 255), // blue
+            new Color(255, 120, 220)  // magenta
+    };
+    private static final Color TRIM = new Color(255, 255, 255, 180);
+
+    public static final int PALETTE_SIZE = PALETTE.length;
+
+    private OpponentCar() { }
+
+    // Draws a car from plain values so renderers can work from snapshots instead of live objects
+    public static void draw(Graphics2D g2, int ix, int iy, int width, int height, int paletteIndex) {
+        draw(g2, ix, iy, width, height, paletteIndex, 1);
+    }
+
+    // scale: device pixels per unit of g2's coordinates, the resolution sprites are baked at
+    public static void draw(Graphics2D g2, int ix, int iy, int width, int height, int paletteIndex, double scale) {
+        if (SpriteCache.isEnabled()) {
+            drawSprite(g2, ix, iy, width, height, paletteIndex, scale);
+        } else {
+            drawVector(g2, ix, iy, width, height, PALETTE[paletteIndex], Quality.current().effects());
+        }
+    }
+
+    private static void drawSprite(Graphics2D g2, int ix, int iy, int width, int height, int paletteIndex, double scale) {
+        int padX = spritePadX(width);
+        int padTop = spritePadTop(width, height);
+        Quality quality = Quality.current();
+        int effects = quality.effects();
+        int look = quality.ordinal() << 4 | (effects & ~Quality.FULL_RES);
+        long key = SpriteCache.key(SPRITE_KIND, SpriteCache.scaledVariant(look * PALETTE_SIZE + paletteIndex, scale),
+                width, height);
+        SpriteCache cache = SpriteCache.shared();
+        BufferedImage sprite = cache.get(key);
+        if (sprite == null) {
+            sprite = SpriteCache.createSpriteImage((int) Math.ceil((width + padX * 2) * scale),
+                    (int) Math.ceil((height + padTop + spritePadBottom(width, height)) * scale));
+            Graphics2D sg = sprite.createGraphics();
+            UiUtils.enableQuality(sg);
+            sg.scale(scale, scale);
+            drawVector(sg, padX, padTop, width, height, PALETTE[paletteIndex], effects);
+            sg.dispose();
+            cache.put(key, sprite);
+        }
+        AffineTransform saved = SpriteCache.enterDeviceSpace(g2, scale);
+        g2.drawImage(sprite, (int) Math.round((ix - padX) * scale), (int) Math.round((iy - padTop) * scale), null);
+        SpriteCache.leaveDeviceSpace(g2, saved);
+    }
+
+    // Sprite margins so the tail glow and shadow are not clipped
+    private static float glowRadius(int width) { return Math.max(18, width * 0.9f); }
+
+    private static int spritePadX(int width) {
+        return Math.max(0, (int) Math.ceil(glowRadius(width) - width / 2.0)) + 2;
     }
 
-    public void update(double dtMillis, double globalSpeed) {
-        y += (speed + globalSpeed) * (dtMillis / 16.0);
+    private static int spritePadTop(int width, int height) {
+        return Math.max(0, (int) Math.ceil(glowRadius(width) - height * 0.9)) + 2;
     }
 
-    public void draw(Graphics2D g2) {
-        int ix = (int) Math.round(x);
-        int iy = (int) Math.round(y);
+    private static int spritePadBottom(int width, int height) {
+        int glow = (int) Math.ceil(height * 0.9 + glowRadius(width) - height);
+        int shadow = (int) (height * 0.30) / 2 + 1;
+        return Math.max(glow, shadow) + 2;
+    }
 
+    private static void drawVector(Graphics2D g2, int ix, int iy, int width, int height, Color body, int effects) {
         // Soft shadow
-        Composite oldC = g2.getComposite();
-        g2.setComposite(AlphaComposite.SrcOver.derive(0.30f));
-        g2.setColor(Color.BLACK);
-        int sw = (int) (width * 0.92);
-        int sh = (int) (height * 0.30);
-        g2.fillOval(ix + (width - sw) / 2, iy + height - sh / 2, sw, sh);
-        g2.setComposite(oldC);
+        if ((effects & Quality.SHADOWS) != 0) {
+            Composite oldC = g2.getComposite();
+            g2.setComposite(AlphaComposite.SrcOver.derive(0.30f));
+            g2.setColor(Color.BLACK);
+            int sw = (int) (width * 0.92);
+            int sh = (int) (height * 0.30);
+            g2.fillOval(ix + (width - sw) / 2, iy + height - sh / 2, sw, sh);
+            g2.setComposite(oldC);
+        }
 
         // Taillight glow (rear)
-        drawTailGlow(g2, ix, iy);
+        if ((effects & Quality.GLOWS) != 0) drawTailGlow(g2, ix, iy, width, height);
 
         // Body
         RoundRectangle2D bodyShape = new RoundRectangle2D.Double(ix, iy, width, height, 18, 18);
@@ -61,7 +105,7 @@ public class OpponentCar {
         g2.fill(bodyShape);
 
         // Trim line
-        g2.setColor(trim);
+        g2.setColor(TRIM);
         g2.setStroke(new BasicStroke(3f));
         g2.drawLine(ix + width / 2, iy + 8, ix + width / 2, iy + height - 8);
 
@@ -77,10 +121,10 @@ public class OpponentCar {
         g2.drawLine(ix + width - 6, iy + 10, ix + width - 6, iy + height - 10);
     }
 
-    private void drawTailGlow(Graphics2D g2, int ix, int iy) {
+    private static void drawTailGlow(Graphics2D g2, int ix, int iy, int width, int height) {
         int gx = ix + width / 2;
         int gy = iy + (int) (height * 0.9);
-        float radius = Math.max(18, width * 0.9f);
+        float radius = glowRadius(width);
         RadialGradientPaint rgp = new RadialGradientPaint(
                 new Point2D.Float(gx, gy),
                 radius,
@@ -92,27 +136,4 @@ public class OpponentCar {
         g2.fillOval((int) (gx - radius), (int) (gy - radius), (int) (radius * 2), (int) (radius * 2));
         g2.setPaint(old);
     }
-
-    public Rectangle getBounds() {
-        return new Rectangle((int) Math.round(x), (int) Math.round(y), width, height);
-    }
-
-    public boolean isOffScreen(int screenHeight) {
-        return y > screenHeight + 50;
-    }
-
-    public void setPosition(double newX, double newY) {
-        this.x = newX; this.y = newY;
-        this.countedPass = false;
-    }
-
-    public void setSpeed(double speed) {
-        this.speed = speed;
-    }
-
-    public boolean hasBeenCounted() { return countedPass; }
-    public void markCounted() { this.countedPass = true; }
-
-    public double getY() { return y; }
-    public int getHeight() { return height; }
-}
\ No newline at end of file
+}
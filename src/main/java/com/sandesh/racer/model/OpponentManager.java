@@ -1,12 +1,9 @@
 package com.sandesh.racer.logic;
 
 import com.sandesh.racer.model.OpponentCar;
-import com.sandesh.racer.model.PlayerCar;
+import com.sandesh.racer.util.GameEvents;
 
-import java.awt.*;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.Arrays;
 
 public class OpponentManager {
     private final int lanes;
@@ -15,84 +12,375 @@ public class OpponentManager {
     private final int screenHeight;
     private final int laneWidth;
 
-    private final List<OpponentCar> opponents = new ArrayList<>();
-    private final Random rng = new Random();
+    private static final int INITIAL_CAPACITY = 16; // power of two, lane rings index with a mask
+
+    // Opponents as a structure of arrays: slot i across all arrays is one car, slots [0, count) are live
+    private int count = 0;
+    private double[] x = new double[INITIAL_CAPACITY];
+    private double[] y = new double[INITIAL_CAPACITY];
+    private double[] prevY = new double[INITIAL_CAPACITY]; // y before the last update, for render interpolation
+    private double[] speed = new double[INITIAL_CAPACITY];
+    private int[] width = new int[INITIAL_CAPACITY];
+    private int[] height = new int[INITIAL_CAPACITY];
+    private int[] palette = new int[INITIAL_CAPACITY];
+    private int[] lane = new int[INITIAL_CAPACITY];
+    private int[] lanePos = new int[INITIAL_CAPACITY]; // physical index of the slot inside its lane ring
+
+    // Per-lane spatial index: a ring buffer of slot ids sorted by y ascending, so new cars are
+    // pushed at the head (top) and cars leaving the screen are popped from the tail (bottom).
+    // Cars only move down, so everything past the pass line is a suffix of the ring.
+    private final int[][] laneSlots;
+    private final int[] laneHead;
+    private final int[] laneSize;
+    private final int[] lanePassed; // pass cursor: length of the already-counted suffix
+    private int maxCarWidth = 0;
+    private int maxCarHeight = 0;
+
+    private final GameRandom rng;
+    private final DifficultyCurve curve;
 
     // spawn control
     private double spawnTimer = 0; // millis
-    private double spawnInterval = 900; // millis
+    private double spawnInterval; // millis
     private double baseSpeed = 3.6; // pixels per frame at 60fps
     private double globalSpeed = 0; // added to all cars
     private int level = 1;
     private double difficultyTimer = 0; // millis
     private int passedCounter = 0;
+    private boolean events = true; // JFR spawn, despawn and level events
 
     public OpponentManager(int lanes, int roadX, int roadWidth, int screenHeight) {
+        this(lanes, roadX, roadWidth, screenHeight, new GameRandom(System.nanoTime()), DifficultyCurve.DEFAULT);
+    }
+
+    // Same seed, curve and update calls give the same traffic
+    public OpponentManager(int lanes, int roadX, int roadWidth, int screenHeight, GameRandom rng, DifficultyCurve curve) {
+        this.rng = rng;
+        this.curve = curve;
+        this.spawnInterval = curve.startSpawnInterval();
         this.lanes = lanes;
         this.roadX = roadX;
         this.roadWidth = roadWidth;
         this.screenHeight = screenHeight;
         this.laneWidth = roadWidth / lanes;
+        this.laneSlots = new int[lanes][INITIAL_CAPACITY];
+        this.laneHead = new int[lanes];
+        this.laneSize = new int[lanes];
+        this.lanePassed = new int[lanes];
     }
 
     public void update(double dtMillis) {
         spawnTimer += dtMillis;
         difficultyTimer += dtMillis;
 
-        // Difficulty scaling: every 6 seconds, increase speed and spawn rate slightly
-        if (difficultyTimer >= 6000) {
+        // Difficulty scaling: every curve step (6 s by default), increase speed and spawn rate slightly
+        if (difficultyTimer >= curve.stepMillis()) {
             difficultyTimer = 0;
             level++;
-            globalSpeed += 0.35;
-            spawnInterval = Math.max(420, spawnInterval - 40);
+            globalSpeed += curve.speedStep();
+            spawnInterval = Math.max(curve.minSpawnInterval(), spawnInterval - curve.spawnIntervalStep());
+
+            if (events && GameEvents.isTrafficRecorded()) {
+                GameEvents.LevelUp ev = new GameEvents.LevelUp();
+                if (ev.shouldCommit()) {
+                    ev.level = level;
+                    ev.speed = getCurrentSpeed();
+                    ev.spawnIntervalMillis = spawnInterval;
+                    ev.commit();
+                }
+            }
         }
 
         // Spawn new opponents
         while (spawnTimer >= spawnInterval) {
             spawnTimer -= spawnInterval;
-            spawnOpponent();
+            spawnOpponent(-rng.nextInt(140));
         }
 
-        // Update cars
-        List<OpponentCar> toRemove = new ArrayList<>();
-        for (OpponentCar car : opponents) {
-            car.update(dtMillis, globalSpeed);
-            if (!car.hasBeenCounted() && car.getY() > screenHeight - 100) {
-                car.markCounted();
+        // Move cars: a branch-free loop over primitive arrays the JIT can vectorize
+        double step = dtMillis / 16.0;
+        double[] ys = y;
+        double[] prev = prevY;
+        double[] sp = speed;
+        int n = count;
+        for (int i = 0; i < n; i++) {
+            prev[i] = ys[i];
+            ys[i] += (sp[i] + globalSpeed) * step;
+        }
+
+        double passLine = screenHeight - 100;
+        double offScreen = screenHeight + 50;
+        for (int l = 0; l < lanes; l++) {
+            sortLane(l);
+
+            // Advance the pass cursor over cars that crossed the line this tick
+            while (lanePassed[l] < laneSize[l] && ys[laneSlot(l, laneSize[l] - 1 - lanePassed[l])] > passLine) {
+                lanePassed[l]++;
                 passedCounter++;
             }
-            if (car.isOffScreen(screenHeight)) {
-                toRemove.add(car);
+
+            // Cars that left the screen are at the tail of their lane
+            while (laneSize[l] > 0 && ys[laneSlot(l, laneSize[l] - 1)] > offScreen) {
+                int slot = laneSlot(l, --laneSize[l]);
+                lanePassed[l]--;
+                removeAt(slot);
+
+                if (events && GameEvents.isTrafficRecorded()) {
+                    GameEvents.Despawn ev = new GameEvents.Despawn();
+                    if (ev.shouldCommit()) {
+                        ev.lane = l;
+                        ev.opponents = count;
+                        ev.commit();
+                    }
+                }
             }
         }
-        opponents.removeAll(toRemove);
     }
 
-    private void spawnOpponent() {
+    // Slot id at logical position k (0 = top-most car) of a lane
+    private int laneSlot(int l, int k) {
+        int[] ring = laneSlots[l];
+        return ring[(laneHead[l] + k) & (ring.length - 1)];
+    }
+
+    // Insertion sort by y: lanes are almost sorted already, so this is linear in practice
+    private void sortLane(int l) {
+        int[] ring = laneSlots[l];
+        int mask = ring.length - 1;
+        int head = laneHead[l];
+        for (int i = 1, n = laneSize[l]; i < n; i++) {
+            int slot = ring[(head + i) & mask];
+            double key = y[slot];
+            int j = i - 1;
+            while (j >= 0 && y[ring[(head + j) & mask]] > key) {
+                int moved = ring[(head + j) & mask];
+                ring[(head + j + 1) & mask] = moved;
+                lanePos[moved] = (head + j + 1) & mask;
+                j--;
+            }
+            ring[(head + j + 1) & mask] = slot;
+            lanePos[slot] = (head + j + 1) & mask;
+        }
+    }
+
+    // Stress/"traffic jam" mode: push extra cars into the entry band above the screen
+    public void spawnTraffic(int cars) {
+        for (int i = 0; i < cars; i++) {
+            spawnOpponent(-rng.nextInt(140));
+        }
+        for (int l = 0; l < lanes; l++) sortLane(l);
+    }
+
+    private void spawnOpponent(int yOffset) {
         int laneIndex = rng.nextInt(lanes);
         int carW = 52 + rng.nextInt(8);
         int carH = 86 + rng.nextInt(10);
         int laneCenter = roadX + laneWidth * laneIndex + laneWidth / 2;
-        int x = laneCenter - carW / 2;
-        int y = -carH - rng.nextInt(140);
 
-        OpponentCar car = new OpponentCar(x, y, carW, carH, baseSpeed + rng.nextDouble() * 1.8);
-        opponents.add(car);
+        if (count == x.length) grow();
+        int s = count++;
+        x[s] = laneCenter - carW / 2;
+        y[s] = -carH + yOffset;
+        prevY[s] = y[s];
+        width[s] = carW;
+        height[s] = carH;
+        speed[s] = baseSpeed + rng.nextDouble() * 1.8;
+        palette[s] = rng.nextInt(OpponentCar.PALETTE_SIZE);
+        lane[s] = laneIndex;
+        maxCarWidth = Math.max(maxCarWidth, carW);
+        maxCarHeight = Math.max(maxCarHeight, carH);
+
+        // New cars enter at the top, so push at the head; callers re-sort before the lane is queried
+        if (laneSize[laneIndex] == laneSlots[laneIndex].length) growLane(laneIndex);
+        int[] ring = laneSlots[laneIndex];
+        int head = (laneHead[laneIndex] - 1) & (ring.length - 1);
+        ring[head] = s;
+        lanePos[s] = head;
+        laneHead[laneIndex] = head;
+        laneSize[laneIndex]++;
+
+        if (events && GameEvents.isTrafficRecorded()) {
+            GameEvents.Spawn ev = new GameEvents.Spawn();
+            if (ev.shouldCommit()) {
+                ev.lane = laneIndex;
+                ev.speed = speed[s];
+                ev.opponents = count;
+                ev.commit();
+            }
+        }
     }
 
-    public boolean collidesWith(Rectangle playerBounds) {
-        for (OpponentCar car : opponents) {
-            if (car.getBounds().intersects(playerBounds)) {
-                return true;
+    // Doubles a lane ring, unrolling it so the head is at index 0
+    private void growLane(int l) {
+        int[] old = laneSlots[l];
+        int[] ring = new int[old.length * 2];
+        for (int k = 0; k < laneSize[l]; k++) {
+            ring[k] = old[(laneHead[l] + k) & (old.length - 1)];
+            lanePos[ring[k]] = k;
+        }
+        laneSlots[l] = ring;
+        laneHead[l] = 0;
+    }
+
+    // Swap-removes a slot that has already been dropped from its lane list
+    private void removeAt(int i) {
+        int last = --count;
+        if (i != last) {
+            x[i] = x[last];
+            y[i] = y[last];
+            prevY[i] = prevY[last];
+            speed[i] = speed[last];
+            width[i] = width[last];
+            height[i] = height[last];
+            palette[i] = palette[last];
+            lane[i] = lane[last];
+            lanePos[i] = lanePos[last];
+            laneSlots[lane[i]][lanePos[i]] = i;
+        }
+    }
+
+    private void grow() {
+        int cap = x.length * 2;
+        x = Arrays.copyOf(x, cap);
+        y = Arrays.copyOf(y, cap);
+        prevY = Arrays.copyOf(prevY, cap);
+        speed = Arrays.copyOf(speed, cap);
+        width = Arrays.copyOf(width, cap);
+        height = Arrays.copyOf(height, cap);
+        palette = Arrays.copyOf(palette, cap);
+        lane = Arrays.copyOf(lane, cap);
+        lanePos = Arrays.copyOf(lanePos, cap);
+    }
+
+    // Saves the traffic and timers into a reusable state; linear in the number of cars
+    public void saveTo(SimulationState s) {
+        int n = count;
+        s.ensureCapacity(n, lanes);
+        System.arraycopy(x, 0, s.x, 0, n);
+        System.arraycopy(y, 0, s.y, 0, n);
+        System.arraycopy(prevY, 0, s.prevY, 0, n);
+        System.arraycopy(speed, 0, s.speed, 0, n);
+        System.arraycopy(width, 0, s.width, 0, n);
+        System.arraycopy(height, 0, s.height, 0, n);
+        System.arraycopy(palette, 0, s.palette, 0, n);
+        int k = 0;
+        for (int l = 0; l < lanes; l++) {
+            s.laneSize[l] = laneSize[l];
+            s.lanePassed[l] = lanePassed[l];
+            for (int i = 0, size = laneSize[l]; i < size; i++) s.laneCars[k++] = laneSlot(l, i);
+        }
+        s.maxCarWidth = maxCarWidth;
+        s.maxCarHeight = maxCarHeight;
+
+        s.rngState = rng.getState();
+        s.spawnTimer = spawnTimer;
+        s.spawnInterval = spawnInterval;
+        s.baseSpeed = baseSpeed;
+        s.globalSpeed = globalSpeed;
+        s.level = level;
+        s.difficultyTimer = difficultyTimer;
+        s.passedCounter = passedCounter;
+    }
+
+    // Puts back traffic saved by saveTo on a road with as many lanes and the same curve. The lane
+    // rings are rebuilt unrolled, with the head at index 0; they play on the same either way.
+    public void restoreFrom(SimulationState s) {
+        if (s.lanes != lanes) throw new IllegalArgumentException("state of a road with " + s.lanes + " lanes");
+        int n = s.cars;
+        if (x.length < n) {
+            int cap = Math.max(INITIAL_CAPACITY, Integer.highestOneBit(n - 1) << 1);
+            x = new double[cap];
+            y = new double[cap];
+            prevY = new double[cap];
+            speed = new double[cap];
+            width = new int[cap];
+            height = new int[cap];
+            palette = new int[cap];
+            lane = new int[cap];
+            lanePos = new int[cap];
+        }
+        count = n;
+        System.arraycopy(s.x, 0, x, 0, n);
+        System.arraycopy(s.y, 0, y, 0, n);
+        System.arraycopy(s.prevY, 0, prevY, 0, n);
+        System.arraycopy(s.speed, 0, speed, 0, n);
+        System.arraycopy(s.width, 0, width, 0, n);
+        System.arraycopy(s.height, 0, height, 0, n);
+        System.arraycopy(s.palette, 0, palette, 0, n);
+        int k = 0;
+        for (int l = 0; l < lanes; l++) {
+            int size = s.laneSize[l];
+            if (laneSlots[l].length < size) laneSlots[l] = new int[Integer.highestOneBit(size - 1) << 1];
+            int[] ring = laneSlots[l];
+            for (int i = 0; i < size; i++) {
+                int slot = s.laneCars[k++];
+                ring[i] = slot;
+                lane[slot] = l;
+                lanePos[slot] = i;
+            }
+            laneHead[l] = 0;
+            laneSize[l] = size;
+            lanePassed[l] = s.lanePassed[l];
+        }
+        maxCarWidth = s.maxCarWidth;
+        maxCarHeight = s.maxCarHeight;
+
+        rng.setState(s.rngState);
+        spawnTimer = s.spawnTimer;
+        spawnInterval = s.spawnInterval;
+        baseSpeed = s.baseSpeed;
+        globalSpeed = s.globalSpeed;
+        level = s.level;
+        difficultyTimer = s.difficultyTimer;
+        passedCounter = s.passedCounter;
+    }
+
+    // Off for copies that only look ahead, so flight recordings show the real game's traffic
+    public void setEventsEnabled(boolean on) { events = on; }
+
+    // Same test as Rectangle.intersects on the rounded car bounds, restricted to the
+    // lanes the rectangle can touch and the cars in its y-band (binary search per lane)
+    public boolean collidesWith(int rx, int ry, int rw, int rh) {
+        if (rw <= 0 || rh <= 0) return false;
+        double bandTop = ry - maxCarHeight - 1.0;
+        double bandBottom = ry + rh + 1.0;
+        for (int l = 0; l < lanes; l++) {
+            int laneCenter = roadX + laneWidth * l + laneWidth / 2;
+            if (laneCenter + maxCarWidth / 2 + 1 <= rx || laneCenter - maxCarWidth / 2 - 1 >= rx + rw) continue;
+
+            for (int k = firstAtOrBelow(l, bandTop), n = laneSize[l]; k < n; k++) {
+                int i = laneSlot(l, k);
+                if (y[i] >= bandBottom) break;
+                int ix = (int) Math.round(x[i]);
+                int iy = (int) Math.round(y[i]);
+                if (rx < ix + width[i] && ix < rx + rw && ry < iy + height[i] && iy < ry + rh) {
+                    return true;
+                }
             }
         }
         return false;
     }
 
-    public List<OpponentCar> getOpponents() {
-        return opponents;
+    // Index of the first car in the lane whose y is >= minY
+    private int firstAtOrBelow(int l, double minY) {
+        int lo = 0, hi = laneSize[l];
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (y[laneSlot(l, mid)] < minY) lo = mid + 1; else hi = mid;
+        }
+        return lo;
     }
 
+    // Read-only view for renderers; index i is valid in [0, getOpponentCount())
+    public int getOpponentCount() { return count; }
+    public double getOpponentX(int i) { return x[i]; }
+    public double getOpponentY(int i) { return y[i]; }
+    public double getOpponentPrevY(int i) { return prevY[i]; }
+    public int getOpponentWidth(int i) { return width[i]; }
+    public int getOpponentHeight(int i) { return height[i]; }
+    public int getOpponentPalette(int i) { return palette[i]; }
+    public int getOpponentLane(int i) { return lane[i]; }
+
     public int consumePassedCount(int playerBottomY) {
         int c = passedCounter;
         passedCounter = 0;
@@ -105,8 +393,12 @@ public class OpponentManager {
 
     public int getLevel() { return level; }
 
+    public int getLanes() { return lanes; }
+
+    public DifficultyCurve getCurve() { return curve; }
+
     public double getSpeedFactor() {
         // For scoring, map speed roughly
         return 1.0 + (globalSpeed / 4.0) + (level - 1) * 0.1;
     }
-}
\ No newline at end of file
+}
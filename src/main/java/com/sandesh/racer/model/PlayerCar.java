@@ -1,66 +1,110 @@
 package com.sandesh.racer.model;
 
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.UiUtils;
+
 import java.awt.*;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 
+// Player rendering; position and animation state live in GameSimulation
 public class PlayerCar {
-    private double x;
+    private static final int SPRITE_KIND = 2;
+
+    // Animation frames baked into sprites: headlight pulse x wheel spoke phase
+    private static final double PULSE_PERIOD_MS = 1200.0;
+    private static final double WHEEL_PERIOD = Math.PI * 2 / 0.12;
+    private static final int PULSE_FRAMES = 12;
+    private static final int WHEEL_FRAMES = 4;
+    private static final int CONE_LENGTH = 80;
+
     private final double y;
     private final int width;
     private final int height;
-    private final double speed;
-    private final int minX;
-    private final int maxX;
 
     private final Color bodyColor = new Color(100, 220, 255);
     private final Color trimColor = new Color(0, 255, 200);
 
-    // Animation
-    private double pulseMs = 0;    // for subtle light pulsing
-    private double wheelPhase = 0; // fake "rotation" accent
-
-    public PlayerCar(double x, double y, int width, int height, double speed, int minX, int maxX) {
-        this.x = x;
+    public PlayerCar(double y, int width, int height) {
         this.y = y;
         this.width = width;
         this.height = height;
-        this.speed = speed;
-        this.minX = minX + 8;
-        this.maxX = maxX - width - 8;
     }
 
-    public void tick(double dtMillis) {
-        pulseMs += dtMillis;
-        if (pulseMs > 10_000) pulseMs = 0;
-        // Tie wheel phase loosely to time; this is just for a subtle animated accent
-        wheelPhase += dtMillis * 0.08;
-        if (wheelPhase > 10_000) wheelPhase = 0;
+    // Draws from snapshot values; only the immutable geometry is read from this instance
+    public void draw(Graphics2D g2, double x, double pulseMs, double wheelPhase) {
+        draw(g2, x, pulseMs, wheelPhase, 1);
     }
 
-    public void moveLeft() {
-        x -= speed;
-        if (x < minX) x = minX;
+    // scale: device pixels per unit of g2's coordinates, the resolution sprites are baked at
+    public void draw(Graphics2D g2, double x, double pulseMs, double wheelPhase, double scale) {
+        int ix = (int) Math.round(x);
+        int iy = (int) Math.round(y);
+
+        if (SpriteCache.isEnabled()) {
+            drawSprite(g2, ix, iy, pulseMs, wheelPhase, scale);
+        } else {
+            drawVector(g2, ix, iy, pulseMs, wheelPhase, Quality.current().effects());
+        }
     }
 
-    public void moveRight() {
-        x += speed;
-        if (x > maxX) x = maxX;
+    private void drawSprite(Graphics2D g2, int ix, int iy, double pulseMs, double wheelPhase, double scale) {
+        int pulseFrame = (int) ((pulseMs % PULSE_PERIOD_MS) / PULSE_PERIOD_MS * PULSE_FRAMES) % PULSE_FRAMES;
+        int wheelFrame = (int) ((wheelPhase % WHEEL_PERIOD) / WHEEL_PERIOD * WHEEL_FRAMES) % WHEEL_FRAMES;
+        int padX = spritePadX();
+        int padTop = spritePadTop();
+
+        Quality quality = Quality.current();
+        int effects = quality.effects();
+        int look = quality.ordinal() << 4 | (effects & ~Quality.FULL_RES);
+        int variant = (look * PULSE_FRAMES + pulseFrame) * WHEEL_FRAMES + wheelFrame;
+        long key = SpriteCache.key(SPRITE_KIND, SpriteCache.scaledVariant(variant, scale), width, height);
+        SpriteCache cache = SpriteCache.shared();
+        BufferedImage sprite = cache.get(key);
+        if (sprite == null) {
+            sprite = SpriteCache.createSpriteImage((int) Math.ceil((width + padX * 2) * scale),
+                    (int) Math.ceil((height + padTop + spritePadBottom()) * scale));
+            Graphics2D sg = sprite.createGraphics();
+            UiUtils.enableQuality(sg);
+            sg.scale(scale, scale);
+            drawVector(sg, padX, padTop,
+                    pulseFrame * PULSE_PERIOD_MS / PULSE_FRAMES,
+                    wheelFrame * WHEEL_PERIOD / WHEEL_FRAMES, effects);
+            sg.dispose();
+            cache.put(key, sprite);
+        }
+        AffineTransform saved = SpriteCache.enterDeviceSpace(g2, scale);
+        g2.drawImage(sprite, (int) Math.round((ix - padX) * scale), (int) Math.round((iy - padTop) * scale), null);
+        SpriteCache.leaveDeviceSpace(g2, saved);
     }
 
-    public Rectangle getBounds() {
-        return new Rectangle((int) Math.round(x), (int) Math.round(y), width, height);
+    // Sprite margins so underglow, shadow and headlight cones are not clipped
+    private float glowRadius() { return Math.max(width, height) * 0.65f; }
+
+    private int spritePadX() {
+        return Math.max(0, (int) Math.ceil(glowRadius() - width / 2.0)) + 2;
     }
 
-    public void draw(Graphics2D g2) {
-        int ix = (int) Math.round(x);
-        int iy = (int) Math.round(y);
+    private int spritePadTop() {
+        int glow = (int) Math.ceil(glowRadius() - height * 0.7);
+        return Math.max(CONE_LENGTH, glow) + 2;
+    }
+
+    private int spritePadBottom() {
+        int glow = (int) Math.ceil(height * 0.7 + glowRadius() - height);
+        int shadow = (int) (height * 0.32) / 2 + 1;
+        return Math.max(glow, shadow) + 2;
+    }
 
+    private void drawVector(Graphics2D g2, int ix, int iy, double pulseMs, double wheelPhase, int effects) {
         // Soft drop shadow under the car
-        drawShadow(g2, ix, iy);
+        if ((effects & Quality.SHADOWS) != 0) drawShadow(g2, ix, iy);
 
         // Neon underglow
-        drawUnderGlow(g2, ix, iy);
+        if ((effects & Quality.GLOWS) != 0) drawUnderGlow(g2, ix, iy);
 
         // Car body
         RoundRectangle2D body = new RoundRectangle2D.Double(ix, iy, width, height, 18, 18);
@@ -75,10 +119,10 @@ public class PlayerCar {
         g2.draw(body);
 
         // Wheels
-        drawWheel(g2, ix + 8, iy + 14, 12, 20);
-        drawWheel(g2, ix + width - 20, iy + 14, 12, 20);
-        drawWheel(g2, ix + 8, iy + height - 34, 12, 20);
-        drawWheel(g2, ix + width - 20, iy + height - 34, 12, 20);
+        drawWheel(g2, ix + 8, iy + 14, 12, 20, wheelPhase);
+        drawWheel(g2, ix + width - 20, iy + 14, 12, 20, wheelPhase);
+        drawWheel(g2, ix + 8, iy + height - 34, 12, 20, wheelPhase);
+        drawWheel(g2, ix + width - 20, iy + height - 34, 12, 20, wheelPhase);
 
         // Center trim stripe
         g2.setColor(trimColor);
@@ -103,8 +147,8 @@ public class PlayerCar {
         g2.fillRoundRect(ix + 12, iy + 16, width - 24, 10, 10, 10);
 
         // Headlights + subtle cones with pulse
-        double pulse = 0.6 + 0.4 * Math.sin((pulseMs / 1200.0) * Math.PI * 2);
-        drawHeadlights(g2, ix, iy, (float) pulse);
+        double pulse = 0.6 + 0.4 * Math.sin((pulseMs / PULSE_PERIOD_MS) * Math.PI * 2);
+        drawHeadlights(g2, ix, iy, (float) pulse, (effects & Quality.CONES) != 0);
     }
 
     private void drawShadow(Graphics2D g2, int ix, int iy) {
@@ -136,7 +180,7 @@ public class PlayerCar {
         g2.setPaint(old);
     }
 
-    private void drawWheel(Graphics2D g2, int x, int y, int w, int h) {
+    private void drawWheel(Graphics2D g2, int x, int y, int w, int h, double wheelPhase) {
         // Tire
         g2.setColor(new Color(18, 18, 22));
         g2.fillRoundRect(x, y, w, h, 8, 8);
@@ -152,17 +196,18 @@ public class PlayerCar {
         g2.drawLine(x + w / 2, y + 3, x + w / 2, y + h - 3);
     }
 
-    private void drawHeadlights(Graphics2D g2, int ix, int iy, float pulse) {
+    private void drawHeadlights(Graphics2D g2, int ix, int iy, float pulse, boolean cones) {
         // Light sources
         g2.setColor(new Color(255, 255, 200, (int) (180 * pulse)));
         g2.fillOval(ix + 6, iy + 2, 12, 6);
         g2.fillOval(ix + width - 18, iy + 2, 12, 6);
+        if (!cones) return;
 
         // Cones (triangular glow forward)
         Composite old = g2.getComposite();
         g2.setComposite(AlphaComposite.SrcOver.derive(0.14f * pulse));
         g2.setColor(new Color(255, 255, 200));
-        int coneLen = 80;
+        int coneLen = CONE_LENGTH;
         Polygon leftCone = new Polygon(
                 new int[]{ix + 10, ix + 2, ix + width / 2 - 4},
                 new int[]{iy + 2, iy - coneLen, iy - coneLen},
@@ -179,5 +224,6 @@ public class PlayerCar {
     }
 
     public int getY() { return (int) Math.round(y); }
+    public int getWidth() { return width; }
     public int getHeight() { return height; }
 }
\ No newline at end of file
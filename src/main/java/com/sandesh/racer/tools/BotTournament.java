@@ -0,0 +1,296 @@
+package com.sandesh.racer.tools;
+
+import com.sandesh.racer.logic.DodgeBot;
+import com.sandesh.racer.logic.GameRandom;
+import com.sandesh.racer.logic.GameSimulation;
+import com.sandesh.racer.logic.InputSource;
+import com.sandesh.racer.logic.LookaheadPlanner;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.LongFunction;
+
+// Bot tournament: every bot plays the same seeded headless games on all cores, steering through
+// the InputSource the keyboard feeds in the real game, so the traffic, scoring and collisions are
+// the game's own. Prints score and survival distributions per bot, plus how often each bot had
+// the best score on a seed, and writes them as CSV.
+//
+//   java -cp target/classes com.sandesh.racer.tools.BotTournament
+//
+// Settings (system properties):
+//   bots.roster=dodge,dodge-eager,dodge-edges,dodge-short,random,idle   entrants, from roster();
+//                         "lookahead" (the attract mode's planner) is a few hundred times slower per tick
+//   bots.games=20000      games per bot (seeds bots.seed .. bots.seed + games - 1)
+//   bots.maxTicks=18000   cap per game (5 minutes at 60 Hz); capped games count as survived
+//   bots.threads=<cores>
+//   bots.out=target/tournament   results.csv and games.csv; empty to only print the table
+public class BotTournament {
+
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int LEAF_GAMES = 128; // games per fork-join leaf
+    private static final double[] QUANTILES = {0.10, 0.50, 0.90, 0.99};
+    private static final String DEFAULT_ROSTER = "dodge,dodge-eager,dodge-edges,dodge-short,random,idle";
+
+    // Entrants by name, made per game from its seed; bots keep scratch state, so never shared
+    static Map<String, LongFunction<InputSource>> roster() {
+        Map<String, LongFunction<InputSource>> bots = new LinkedHashMap<>();
+        bots.put("dodge", seed -> new DodgeBot());
+        bots.put("dodge-eager", seed -> new DodgeBot(700, 10, 40, 80));  // changes lanes readily, through tighter gaps
+        bots.put("dodge-edges", seed -> new DodgeBot(700, 30, 0, 120));  // no liking for the middle lane
+        bots.put("dodge-short", seed -> new DodgeBot(300, 30, 40, 120)); // looks less than half as far ahead
+        bots.put("random", RandomDriver::new);
+        bots.put("idle", seed -> sim -> 0);                               // keeps the starting lane
+        bots.put("lookahead", seed -> new PlannedDriver());
+        return bots;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int games = Integer.getInteger("bots.games", 20_000);
+        long maxTicks = Long.getLong("bots.maxTicks", 18_000L);
+        long baseSeed = Long.getLong("bots.seed", 1L);
+        int threads = Integer.getInteger("bots.threads", Runtime.getRuntime().availableProcessors());
+        String out = System.getProperty("bots.out", "target/tournament");
+
+        Map<String, LongFunction<InputSource>> roster = roster();
+        List<Entry> entries = new ArrayList<>();
+        for (String name : System.getProperty("bots.roster", DEFAULT_ROSTER).split(",")) {
+            name = name.trim();
+            if (name.isEmpty()) continue;
+            LongFunction<InputSource> bot = roster.get(name);
+            if (bot == null) throw new IllegalArgumentException("Unknown bot " + name + ", expected one of " + roster.keySet());
+            entries.add(new Entry(name, bot, games));
+        }
+
+        System.out.printf(Locale.ROOT, "%d bots x %d games on %d threads%n", entries.size(), games, threads);
+        long start = System.nanoTime();
+
+        // One task tree per bot on a work-stealing pool: idle workers take halves of the others' ranges
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<ForkJoinTask<Void>> tasks = new ArrayList<>();
+        for (Entry e : entries) {
+            tasks.add(pool.submit(new Games(e, baseSeed, maxTicks, 0, games)));
+        }
+        long totalTicks = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            tasks.get(i).join();
+            Entry e = entries.get(i);
+            for (long t : e.ticks) totalTicks += t;
+            System.out.printf(Locale.ROOT, "[%d/%d] %s done%n", i + 1, entries.size(), e.name);
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d games, %d ticks in %.1f s (%.0f games/s)%n%n",
+                (long) games * entries.size(), totalTicks, seconds, games * entries.size() / seconds);
+
+        int[] best = bestOnSeed(entries, games);
+        printTable(entries, best);
+        if (!out.isEmpty()) {
+            Path dir = Path.of(out);
+            Files.createDirectories(dir);
+            writeCsv(dir, entries, best, baseSeed);
+            System.out.println("Wrote " + dir.toAbsolutePath());
+        }
+    }
+
+    // One bot's results, indexed by game; each game's slot is written by exactly one leaf
+    private static final class Entry {
+        final String name;
+        final LongFunction<InputSource> bot;
+        final int[] scores;
+        final long[] ticks;
+        final boolean[] crashed;
+
+        Entry(String name, LongFunction<InputSource> bot, int games) {
+            this.name = name;
+            this.bot = bot;
+            this.scores = new int[games];
+            this.ticks = new long[games];
+            this.crashed = new boolean[games];
+        }
+    }
+
+    // Plays games [from, to) of one bot, splitting until a leaf is small enough
+    private static final class Games extends RecursiveAction {
+        private final Entry entry;
+        private final long baseSeed, maxTicks;
+        private final int from, to;
+
+        Games(Entry entry, long baseSeed, long maxTicks, int from, int to) {
+            this.entry = entry;
+            this.baseSeed = baseSeed;
+            this.maxTicks = maxTicks;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= LEAF_GAMES) {
+                for (int i = from; i < to; i++) {
+                    long seed = baseSeed + i;
+                    GameSimulation.Result r = new GameSimulation(seed).run(entry.bot.apply(seed), maxTicks);
+                    entry.scores[i] = r.score();
+                    entry.ticks[i] = r.ticks();
+                    entry.crashed[i] = r.crashed();
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Games(entry, baseSeed, maxTicks, from, mid), new Games(entry, baseSeed, maxTicks, mid, to));
+        }
+    }
+
+    // Holds a random direction, or none, for a random stretch; the floor any strategy has to beat
+    private static final class RandomDriver implements InputSource {
+        private final GameRandom random;
+        private int buttons;
+        private int ticksLeft;
+
+        RandomDriver(long seed) {
+            random = new GameRandom(~seed);
+        }
+
+        @Override
+        public int poll(GameSimulation sim) {
+            if (--ticksLeft <= 0) {
+                buttons = random.nextInt(3); // 0, LEFT or RIGHT
+                ticksLeft = 10 + random.nextInt(50);
+            }
+            return buttons;
+        }
+    }
+
+    // The attract mode's beam search, untimed so results do not depend on the machine
+    private static final class PlannedDriver implements InputSource {
+        private LookaheadPlanner planner;
+        private int action;
+        private int ticksLeft;
+
+        @Override
+        public int poll(GameSimulation sim) {
+            if (planner == null) {
+                planner = new LookaheadPlanner(8, 10, GameSimulation.TICK_MS, sim.getOpponentManager().getCurve());
+            }
+            if (--ticksLeft <= 0) {
+                action = planner.plan(sim);
+                ticksLeft = LookaheadPlanner.MACRO_TICKS;
+            }
+            return action;
+        }
+    }
+
+    // Per bot, the seeds on which no other bot scored more (ties count for each)
+    private static int[] bestOnSeed(List<Entry> entries, int games) {
+        int[] best = new int[entries.size()];
+        for (int g = 0; g < games; g++) {
+            int top = Integer.MIN_VALUE;
+            for (Entry e : entries) top = Math.max(top, e.scores[g]);
+            for (int b = 0; b < entries.size(); b++) {
+                if (entries.get(b).scores[g] == top) best[b]++;
+            }
+        }
+        return best;
+    }
+
+    // Nearest-rank quantiles of a sorted array
+    private static long quantile(long[] sorted, double q) {
+        int rank = (int) Math.ceil(q * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static long[] sortedScores(Entry e) {
+        long[] s = new long[e.scores.length];
+        for (int i = 0; i < s.length; i++) s[i] = e.scores[i];
+        Arrays.sort(s);
+        return s;
+    }
+
+    private static long[] sortedTicks(Entry e) {
+        long[] t = e.ticks.clone();
+        Arrays.sort(t);
+        return t;
+    }
+
+    private static double mean(long[] values) {
+        double sum = 0;
+        for (long v : values) sum += v;
+        return values.length == 0 ? 0 : sum / values.length;
+    }
+
+    private static int crashes(Entry e) {
+        int n = 0;
+        for (boolean c : e.crashed) if (c) n++;
+        return n;
+    }
+
+    private static void printTable(List<Entry> entries, int[] best) {
+        System.out.printf(Locale.ROOT, "%-12s %6s | %16s %5s %5s %5s %5s | %11s %6s %6s %6s %6s | %s%n", "bot", "crash",
+                "survival s mean", "p10", "p50", "p90", "p99", "score mean", "p10", "p50", "p90", "p99", "best");
+        for (int b = 0; b < entries.size(); b++) {
+            Entry e = entries.get(b);
+            long[] t = sortedTicks(e);
+            long[] s = sortedScores(e);
+            int games = e.scores.length;
+            System.out.printf(Locale.ROOT, "%-12s %5.1f%% | %16.1f %5.1f %5.1f %5.1f %5.1f | %11.0f %6d %6d %6d %6d | %5.1f%%%n",
+                    e.name, 100.0 * crashes(e) / games,
+                    mean(t) / TICKS_PER_SECOND,
+                    quantile(t, QUANTILES[0]) / (double) TICKS_PER_SECOND,
+                    quantile(t, QUANTILES[1]) / (double) TICKS_PER_SECOND,
+                    quantile(t, QUANTILES[2]) / (double) TICKS_PER_SECOND,
+                    quantile(t, QUANTILES[3]) / (double) TICKS_PER_SECOND,
+                    mean(s), quantile(s, QUANTILES[0]), quantile(s, QUANTILES[1]),
+                    quantile(s, QUANTILES[2]), quantile(s, QUANTILES[3]),
+                    100.0 * best[b] / games);
+        }
+    }
+
+    private static void writeCsv(Path dir, List<Entry> entries, int[] best, long baseSeed) throws IOException {
+        try (BufferedWriter results = Files.newBufferedWriter(dir.resolve("results.csv"));
+             BufferedWriter games = Files.newBufferedWriter(dir.resolve("games.csv"))) {
+            results.write("bot,games,crashRate,meanSurvivalS,p10SurvivalS,p50SurvivalS,p90SurvivalS,p99SurvivalS,"
+                    + "meanScore,p10Score,p50Score,p90Score,p99Score,bestOnSeed");
+            results.newLine();
+            for (int b = 0; b < entries.size(); b++) {
+                Entry e = entries.get(b);
+                long[] t = sortedTicks(e);
+                long[] s = sortedScores(e);
+                int n = e.scores.length;
+                StringBuilder row = new StringBuilder(e.name).append(',').append(n)
+                        .append(String.format(Locale.ROOT, ",%.4f,%.2f", crashes(e) / (double) n, mean(t) / TICKS_PER_SECOND));
+                for (double q : QUANTILES) row.append(String.format(Locale.ROOT, ",%.2f", quantile(t, q) / (double) TICKS_PER_SECOND));
+                row.append(String.format(Locale.ROOT, ",%.1f", mean(s)));
+                for (double q : QUANTILES) row.append(',').append(quantile(s, q));
+                row.append(String.format(Locale.ROOT, ",%.4f", best[b] / (double) n));
+                results.write(row.toString());
+                results.newLine();
+            }
+
+            // One row per seed: each bot's score, survival ticks and whether it crashed
+            StringBuilder header = new StringBuilder("seed");
+            for (Entry e : entries) header.append(',').append(e.name).append("Score,")
+                    .append(e.name).append("Ticks,").append(e.name).append("Crashed");
+            games.write(header.toString());
+            games.newLine();
+            int n = entries.isEmpty() ? 0 : entries.get(0).scores.length;
+            for (int g = 0; g < n; g++) {
+                StringBuilder row = new StringBuilder().append(baseSeed + g);
+                for (Entry e : entries) row.append(',').append(e.scores[g]).append(',').append(e.ticks[g])
+                        .append(',').append(e.crashed[g] ? 1 : 0);
+                games.write(row.toString());
+                games.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+package com.sandesh.racer.tools;
+
+import com.sandesh.racer.logic.DifficultyCurve;
+import com.sandesh.racer.logic.DodgeBot;
+import com.sandesh.racer.logic.GameSimulation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+// Monte-Carlo difficulty sweep: plays headless seeded games with DodgeBot for every combination
+// of the DifficultyCurve parameters on all cores and writes survival/score distributions as CSV.
+//
+//   java -cp target/classes com.sandesh.racer.tools.DifficultyTuner
+//
+// Settings (system properties, lists are comma separated):
+//   tune.games=40000            games per parameter set (seeds tune.seed .. tune.seed + games - 1)
+//   tune.maxTicks=18000         cap per game (5 minutes at 60 Hz); capped games count as survived
+//   tune.threads=<cores>
+//   tune.out=target/tuning      summary.csv, survival.csv and score.csv
+//   tune.stepMillis=6000  tune.speedStep=0.25,0.35,0.45  tune.startSpawnInterval=900
+//   tune.spawnIntervalStep=20,40,60  tune.minSpawnInterval=340,420,500
+public class DifficultyTuner {
+
+    private static final int TICKS_PER_SECOND = 60;
+    private static final int SCORE_BUCKET = 50;
+    private static final int LEAF_GAMES = 256; // games per fork-join leaf, a few hundred ms of work
+
+    public static void main(String[] args) throws IOException {
+        int games = Integer.getInteger("tune.games", 40_000);
+        long maxTicks = Long.getLong("tune.maxTicks", 18_000L);
+        long baseSeed = Long.getLong("tune.seed", 1L);
+        int threads = Integer.getInteger("tune.threads", Runtime.getRuntime().availableProcessors());
+        Path out = Path.of(System.getProperty("tune.out", "target/tuning"));
+        List<DifficultyCurve> curves = sweep();
+
+        System.out.printf(Locale.ROOT, "%d parameter sets x %d games on %d threads%n", curves.size(), games, threads);
+        long start = System.nanoTime();
+
+        // Every set replays the same seeds, so differences between sets are not seed noise
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        List<ForkJoinTask<Stats>> tasks = new ArrayList<>();
+        for (DifficultyCurve curve : curves) {
+            tasks.add(pool.submit(new Batch(curve, baseSeed, baseSeed + games, maxTicks)));
+        }
+        List<Stats> results = new ArrayList<>();
+        long totalTicks = 0;
+        for (int i = 0; i < tasks.size(); i++) {
+            Stats s = tasks.get(i).join();
+            results.add(s);
+            totalTicks += s.ticks;
+            System.out.printf(Locale.ROOT, "[%d/%d] %s  mean survival %.1f s%n",
+                    i + 1, curves.size(), describe(curves.get(i)), s.ticks / (double) s.games / TICKS_PER_SECOND);
+        }
+        pool.shutdown();
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf(Locale.ROOT, "%d games, %d ticks in %.1f s (%.0f games/s)%n",
+                (long) games * curves.size(), totalTicks, seconds, games * curves.size() / seconds);
+
+        Files.createDirectories(out);
+        writeCsv(out, curves, results, maxTicks);
+        System.out.println("Wrote " + out.toAbsolutePath());
+    }
+
+    private static List<DifficultyCurve> sweep() {
+        List<DifficultyCurve> curves = new ArrayList<>();
+        for (double stepMillis : doubles("tune.stepMillis", "6000"))
+            for (double speedStep : doubles("tune.speedStep", "0.25,0.35,0.45"))
+                for (double startSpawn : doubles("tune.startSpawnInterval", "900"))
+                    for (double spawnStep : doubles("tune.spawnIntervalStep", "20,40,60"))
+                        for (double minSpawn : doubles("tune.minSpawnInterval", "340,420,500"))
+                            curves.add(new DifficultyCurve(stepMillis, speedStep, startSpawn, spawnStep, minSpawn));
+        return curves;
+    }
+
+    private static double[] doubles(String property, String def) {
+        return Arrays.stream(System.getProperty(property, def).split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .mapToDouble(Double::parseDouble)
+                .toArray();
+    }
+
+    private static String describe(DifficultyCurve c) {
+        return String.format(Locale.ROOT, "step=%.0f speed+%.2f spawn=%.0f-%.0f>=%.0f",
+                c.stepMillis(), c.speedStep(), c.startSpawnInterval(), c.spawnIntervalStep(), c.minSpawnInterval());
+    }
+
+    // Plays seeds [from, to) for one curve, splitting until a leaf is small enough
+    private static final class Batch extends RecursiveTask<Stats> {
+        private final DifficultyCurve curve;
+        private final long from, to, maxTicks;
+
+        Batch(DifficultyCurve curve, long from, long to, long maxTicks) {
+            this.curve = curve;
+            this.from = from;
+            this.to = to;
+            this.maxTicks = maxTicks;
+        }
+
+        @Override
+        protected Stats compute() {
+            if (to - from <= LEAF_GAMES) {
+                Stats stats = new Stats(maxTicks);
+                DodgeBot bot = new DodgeBot();
+                for (long seed = from; seed < to; seed++) {
+                    stats.add(new GameSimulation(seed, curve).run(bot, maxTicks));
+                }
+                return stats;
+            }
+            long mid = (from + to) >>> 1;
+            Batch left = new Batch(curve, from, mid, maxTicks);
+            left.fork();
+            Stats right = new Batch(curve, mid, to, maxTicks).compute();
+            return right.merge(left.join());
+        }
+    }
+
+    // Mergeable histograms: survival per whole second, score per SCORE_BUCKET points
+    private static final class Stats {
+        long games, crashes, ticks, score, levels;
+        final long[] survival;
+        long[] scores = new long[64];
+
+        Stats(long maxTicks) {
+            survival = new long[(int) (maxTicks / TICKS_PER_SECOND) + 1];
+        }
+
+        void add(GameSimulation.Result r) {
+            games++;
+            if (r.crashed()) crashes++;
+            ticks += r.ticks();
+            score += r.score();
+            levels += r.level();
+            survival[(int) Math.min(survival.length - 1, r.ticks() / TICKS_PER_SECOND)]++;
+            int b = r.score() / SCORE_BUCKET;
+            if (b >= scores.length) scores = Arrays.copyOf(scores, Math.max(b + 1, scores.length * 2));
+            scores[b]++;
+        }
+
+        Stats merge(Stats o) {
+            games += o.games;
+            crashes += o.crashes;
+            ticks += o.ticks;
+            score += o.score;
+            levels += o.levels;
+            for (int i = 0; i < survival.length; i++) survival[i] += o.survival[i];
+            if (o.scores.length > scores.length) scores = Arrays.copyOf(scores, o.scores.length);
+            for (int i = 0; i < o.scores.length; i++) scores[i] += o.scores[i];
+            return this;
+        }
+
+        // Lower edge of the bucket holding the q-quantile
+        static int percentile(long[] hist, long total, double q) {
+            long target = (long) Math.ceil(total * q);
+            long seen = 0;
+            for (int i = 0; i < hist.length; i++) {
+                seen += hist[i];
+                if (seen >= Math.max(1, target)) return i;
+            }
+            return hist.length - 1;
+        }
+    }
+
+    private static void writeCsv(Path dir, List<DifficultyCurve> curves, List<Stats> results, long maxTicks) throws IOException {
+        String params = "set,stepMillis,speedStep,startSpawnInterval,spawnIntervalStep,minSpawnInterval";
+        try (BufferedWriter summary = Files.newBufferedWriter(dir.resolve("summary.csv"));
+             BufferedWriter survival = Files.newBufferedWriter(dir.resolve("survival.csv"));
+             BufferedWriter score = Files.newBufferedWriter(dir.resolve("score.csv"))) {
+            summary.write(params + ",games,crashRate,meanSurvivalS,p10SurvivalS,p50SurvivalS,p90SurvivalS,"
+                    + "meanScore,p10Score,p50Score,p90Score,meanLevel");
+            summary.newLine();
+            survival.write(params + ",second,games,survivingFraction");
+            survival.newLine();
+            score.write(params + ",scoreFrom,games");
+            score.newLine();
+
+            for (int i = 0; i < curves.size(); i++) {
+                DifficultyCurve c = curves.get(i);
+                Stats s = results.get(i);
+                String key = String.format(Locale.ROOT, "%d,%s,%s,%s,%s,%s", i,
+                        num(c.stepMillis()), num(c.speedStep()), num(c.startSpawnInterval()),
+                        num(c.spawnIntervalStep()), num(c.minSpawnInterval()));
+
+                summary.write(String.format(Locale.ROOT, "%s,%d,%.4f,%.2f,%d,%d,%d,%.1f,%d,%d,%d,%.2f", key,
+                        s.games, s.crashes / (double) s.games, s.ticks / (double) s.games / TICKS_PER_SECOND,
+                        Stats.percentile(s.survival, s.games, 0.10),
+                        Stats.percentile(s.survival, s.games, 0.50),
+                        Stats.percentile(s.survival, s.games, 0.90),
+                        s.score / (double) s.games,
+                        Stats.percentile(s.scores, s.games, 0.10) * SCORE_BUCKET,
+                        Stats.percentile(s.scores, s.games, 0.50) * SCORE_BUCKET,
+                        Stats.percentile(s.scores, s.games, 0.90) * SCORE_BUCKET,
+                        s.levels / (double) s.games));
+                summary.newLine();
+
+                // Survival curve: share of games still running at the start of each second
+                long alive = s.games;
+                int lastSecond = (int) (maxTicks / TICKS_PER_SECOND);
+                for (int sec = 0; sec <= lastSecond && alive > 0; sec++) {
+                    survival.write(String.format(Locale.ROOT, "%s,%d,%d,%.5f", key, sec, s.survival[sec], alive / (double) s.games));
+                    survival.newLine();
+                    alive -= s.survival[sec];
+                }
+
+                for (int b = 0; b < s.scores.length; b++) {
+                    if (s.scores[b] == 0) continue;
+                    score.write(key + "," + b * SCORE_BUCKET + "," + s.scores[b]);
+                    score.newLine();
+                }
+            }
+        }
+    }
+
+    private static String num(double v) {
+        return v == Math.rint(v) ? Long.toString((long) v) : Double.toString(v);
+    }
+}
@@ -0,0 +1,60 @@
+package com.sandesh.racer.tools;
+
+import com.sandesh.racer.logic.ReplayReader;
+import com.sandesh.racer.logic.ReplayReader.Verification;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+// Re-simulates replay files headless at full speed and checks each reaches the recorded result.
+//
+//   java -cp target/classes com.sandesh.racer.tools.ReplayTool [file-or-directory...]
+//
+// With no arguments it checks ~/.neon-rush/replays. Exits with status 1 if any replay diverges.
+public class ReplayTool {
+
+    public static void main(String[] args) throws IOException {
+        List<Path> files = new ArrayList<>();
+        if (args.length == 0) args = new String[] { Path.of(System.getProperty("user.home"), ".neon-rush", "replays").toString() };
+        for (String arg : args) {
+            Path p = Path.of(arg);
+            if (Files.isDirectory(p)) {
+                try (Stream<Path> s = Files.list(p)) {
+                    s.filter(f -> f.getFileName().toString().endsWith(".nrr")).sorted().forEach(files::add);
+                }
+            } else {
+                files.add(p);
+            }
+        }
+
+        int failed = 0;
+        for (Path f : files) {
+            long start = System.nanoTime();
+            Verification v;
+            try {
+                v = ReplayReader.verify(f);
+            } catch (IOException e) {
+                System.out.println(f.getFileName() + ": unreadable, " + e.getMessage());
+                failed++;
+                continue;
+            }
+            double ms = (System.nanoTime() - start) / 1e6;
+            String status = !v.complete() ? "INCOMPLETE" : v.matches() ? "OK" : "MISMATCH";
+            System.out.printf(Locale.ROOT, "%s: %s  ticks %d  score %d  level %d%s  (%.1f ms)%n",
+                    f.getFileName(), status, v.result().ticks(), v.result().score(), v.result().level(),
+                    v.complete() && !v.matches()
+                            ? String.format(Locale.ROOT, "  expected ticks %d score %d level %d",
+                                    v.expectedTicks(), v.expectedScore(), v.expectedLevel())
+                            : "",
+                    ms);
+            if (v.complete() && !v.matches()) failed++;
+        }
+        System.out.printf(Locale.ROOT, "%d replays, %d failed%n", files.size(), failed);
+        if (failed > 0) System.exit(1);
+    }
+}
@@ -0,0 +1,115 @@
+package com.sandesh.racer.ui;
+
+import java.util.Locale;
+import java.util.concurrent.locks.LockSupport;
+
+// Drives whichever screen is showing from one thread. Frames start on a fixed grid of the
+// monotonic clock at the target rate; a frame that runs long moves to the current slot of the grid
+// rather than queueing up the ones it missed. Between frames the thread parks until just before
+// the next one is due and spins the rest, so it does not depend on the OS timer's granularity.
+// With no screen to drive it parks until one is set and costs nothing.
+class FrameScheduler {
+
+    interface FrameListener {
+        // One frame, on the scheduler thread; frameNanos is the frame's slot on System.nanoTime()
+        void onFrame(long frameNanos);
+    }
+
+    // -Dneonrush.fps=30|60|120|144|uncapped, else -Dneonrush.renderRate, else 60
+    static final int TARGET_FPS = parseFps(System.getProperty("neonrush.fps"),
+            Integer.getInteger("neonrush.renderRate", 60));
+    // Frame rate the quality presets and effects are budgeted for; uncapped runs are held to 60's
+    static final int BUDGET_FPS = TARGET_FPS > 0 ? TARGET_FPS : 60;
+
+    private static final long MIN_SPIN_NANOS = 50_000;
+    private static final long MAX_SPIN_NANOS = 2_000_000;
+
+    private final long periodNanos; // 0: uncapped
+    private final Object frameLock = new Object();
+    private final Thread thread;
+    private volatile FrameListener active;
+    private long spinNanos = 1_000_000; // scheduler thread only: how early to wake before a frame
+
+    FrameScheduler() {
+        this(TARGET_FPS);
+    }
+
+    // fps <= 0: a frame as soon as the last one is done
+    FrameScheduler(int fps) {
+        this.periodNanos = fps > 0 ? 1_000_000_000L / fps : 0;
+        thread = new Thread(this::run, "frame-scheduler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Makes `listener` (or nothing, for null) the screen that gets frames. Once this returns the
+    // previous one is not inside a frame and gets no more, so it can be torn down.
+    void setActive(FrameListener listener) {
+        active = listener;
+        LockSupport.unpark(thread);
+        if (Thread.currentThread() != thread) {
+            synchronized (frameLock) { /* wait out a frame in progress */ }
+        }
+    }
+
+    private void run() {
+        long next = System.nanoTime();
+        while (true) {
+            FrameListener listener = active;
+            if (listener == null) {
+                LockSupport.park(this);
+                continue;
+            }
+
+            if (periodNanos > 0) {
+                long late = System.nanoTime() - next;
+                if (late >= periodNanos) next += late / periodNanos * periodNanos;
+                sleepUntil(next);
+            } else {
+                next = System.nanoTime();
+            }
+
+            synchronized (frameLock) {
+                if (active != listener) continue;
+                try {
+                    listener.onFrame(next);
+                } catch (RuntimeException e) {
+                    System.err.println("Frame failed, screen no longer driven: " + e);
+                    e.printStackTrace();
+                    if (active == listener) active = null;
+                }
+            }
+            next += periodNanos;
+        }
+    }
+
+    // Parks until spinNanos before the deadline and spins the rest. spinNanos follows how late
+    // parks wake on this machine: a little above it, so the spin is as short as it can be.
+    private void sleepUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > spinNanos) {
+            long asked = remaining - spinNanos;
+            long start = System.nanoTime();
+            LockSupport.parkNanos(this, asked);
+            long overshoot = System.nanoTime() - start - asked;
+            if (overshoot > 0) {
+                spinNanos += (Math.min(overshoot * 2, MAX_SPIN_NANOS) - spinNanos) / 8;
+                spinNanos = Math.max(MIN_SPIN_NANOS, spinNanos);
+            }
+        }
+        while (deadline - System.nanoTime() > 0) {
+            Thread.onSpinWait();
+        }
+    }
+
+    static int parseFps(String value, int fallback) {
+        if (value == null || value.isBlank()) return fallback;
+        String v = value.trim().toLowerCase(Locale.ROOT);
+        if (v.equals("uncapped") || v.equals("unlimited")) return 0;
+        try {
+            return Math.max(0, Integer.parseInt(v));
+        } catch (NumberFormatException e) {
+            return fallback;
+        }
+    }
+}
@@ -13,6 +13,7 @@ public class GameOverPanel extends JPanel {
     private final JLabel scoreLabel = new JLabel("Your Score: 0");
     private final DefaultListModel<String> listModel = new DefaultListModel<>();
     private final JList<String> highScoreList = new JList<>(listModel);
+    private final JLabel saveStatus = new JLabel(" ");
     private String lastPlayerName = "";
 
     // Theme colors
@@ -37,6 +38,9 @@ public class GameOverPanel extends JPanel {
         scoreLabel.setFont(scoreLabel.getFont().deriveFont(Font.PLAIN, 20f));
         scoreLabel.setForeground(TEXT);
 
+        saveStatus.setForeground(SUBTEXT);
+        saveStatus.setFont(saveStatus.getFont().deriveFont(Font.PLAIN, 13f));
+
         JLabel hsTitle = new JLabel("High Scores");
         hsTitle.setForeground(SUBTEXT);
         hsTitle.setFont(hsTitle.getFont().deriveFont(Font.BOLD, 18f));
@@ -82,7 +86,9 @@ public class GameOverPanel extends JPanel {
         add(hsTitle, c);
         c.gridy = 3;
         add(sp, c);
-        c.gridy = 4; c.gridwidth = 1;
+        c.gridy = 4;
+        add(saveStatus, c);
+        c.gridy = 5; c.gridwidth = 1;
         add(restartBtn, c);
         c.gridx = 1;
         add(exitBtn, c);
@@ -105,7 +111,7 @@ public class GameOverPanel extends JPanel {
         listModel.clear();
         int rank = 1;
         for (ScoreEntry e : topScores) {
-            listModel.addElement(String.format("%2d. %-12s %6d", rank++, e.name(), e.score()));
+            listModel.addElement(String.format("%2d. %-12s %6d%s", rank++, e.name(), e.score(), e.ghost() != null ? "  ghost" : ""));
         }
         // Ensure first item visible and nothing is pre-selected to avoid focus color surprises
         highScoreList.clearSelection();
@@ -114,6 +120,11 @@ public class GameOverPanel extends JPanel {
         }
     }
 
+    // Below the list: whether the score has reached the disk yet
+    public void setSaveStatus(String status) {
+        saveStatus.setText(status);
+    }
+
     public String getLastPlayerName() {
         return lastPlayerName;
     }
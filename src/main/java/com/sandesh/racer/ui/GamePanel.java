@@ -1,200 +1,445 @@
 package com.sandesh.racer.ui;
 
-import com.sandesh.racer.logic.OpponentManager;
-import com.sandesh.racer.logic.ScoreManager;
-import com.sandesh.racer.model.OpponentCar;
+import com.sandesh.racer.logic.Autopilot;
+import com.sandesh.racer.logic.DifficultyCurve;
+import com.sandesh.racer.logic.GameLoop;
+import com.sandesh.racer.logic.GameSimulation;
+import com.sandesh.racer.logic.GameSnapshot;
+import com.sandesh.racer.logic.GhostCar;
+import com.sandesh.racer.logic.InputSource;
+import com.sandesh.racer.logic.ReplayReader;
+import com.sandesh.racer.logic.ReplayWriter;
 import com.sandesh.racer.model.PlayerCar;
+import com.sandesh.racer.util.GameEvents;
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.Telemetry;
+import com.sandesh.racer.util.Telemetry.Phase;
 import com.sandesh.racer.util.UiUtils;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
-import java.util.List;
-
-public class GamePanel extends JPanel implements ActionListener, KeyListener, ComponentListener {
-
-    public static final int WIDTH = 480;
-    public static final int HEIGHT = 720;
+import java.awt.image.BufferStrategy;
+import java.awt.image.VolatileImage;
+import java.io.IOException;
+import java.nio.file.Path;
+
+public class GamePanel extends JPanel implements KeyListener, ComponentListener, FrameScheduler.FrameListener {
+
+    public static final int WIDTH = GameSimulation.WIDTH;
+    public static final int HEIGHT = GameSimulation.HEIGHT;
+
+    // The simulation steps at a fixed rate of its own, -Dneonrush.tickRate; frames come from the
+    // window's FrameScheduler at -Dneonrush.fps
+    private static final int TICK_RATE = Integer.getInteger("neonrush.tickRate", 60);
+
+    // The logical view, the game area and its margin in simulation units, is fitted into whatever
+    // size the window has. -Dneonrush.renderHeight=<pixels> renders it into a backbuffer that
+    // many pixels tall, upscaled to the window, e.g. 1080 on a 4K screen the machine cannot fill
+    // at full rate; by default frames are drawn at the window's resolution.
+    private static final int MARGIN = 20;
+    private static final int VIEW_WIDTH = WIDTH + MARGIN * 2;
+    private static final int VIEW_HEIGHT = HEIGHT + MARGIN * 2;
+    private static final int RENDER_HEIGHT = Integer.getInteger("neonrush.renderHeight", 0);
+
+    // Shared by every game so the histograms cover the whole session; recording is off unless
+    // the overlay (F5) is shown, -Dneonrush.telemetry.dump=<file> asks for periodic dumps or a
+    // flight recording wants the phase times for its tick and frame spike events
+    private static final Telemetry TELEMETRY = createTelemetry();
+    private static volatile boolean showTelemetry = false;
+    private static volatile boolean phaseEventsRecorded = false;
+
+    // Sheds car effects while frames run over budget; -Dneonrush.adaptive=false keeps the preset
+    private static final boolean ADAPTIVE = !"false".equals(System.getProperty("neonrush.adaptive"));
+
+    private static final Font ATTRACT_FONT = new Font(Font.SANS_SERIF, Font.BOLD, 18);
+
+    static {
+        GameEvents.onRecordingChange(() -> {
+            phaseEventsRecorded = new GameEvents.Tick().isEnabled() || new GameEvents.FrameSpike().isEnabled();
+            updateTelemetry();
+        });
+    }
 
     private final String playerName;
-    private final Timer timer;
-    private long lastUpdateNanos;
-    private final PlayerCar player;
-    private final OpponentManager opponentManager;
-    private final ScoreManager scoreManager;
-
-    private boolean leftPressed = false;
-    private boolean rightPressed = false;
-
-    private final int roadX = 60;
-    private final int roadWidth = 360;
-    private final int lanes = 3;
-
-    private boolean isRunning = true;
+    private final GameLoop loop;
+    private final Canvas canvas;
+    private final GameSimulation sim;
+    private final GameRenderer renderer;
+    private final TelemetryOverlay telemetryOverlay = new TelemetryOverlay(TELEMETRY);
+    private final QualityScaler qualityScaler = new QualityScaler(FrameScheduler.BUDGET_FPS); // scheduler thread until cleanup
+    private final ReplayReader replay; // null: live game steered with the keyboard
+    private final Autopilot autopilot; // non-null: attract mode, the car drives itself
+    private ReplayWriter recorder;     // null when not recording; touched on the scheduler thread
+    private volatile Path recordedReplay; // set once the replay of a finished game is complete
+    private GhostCar ghost;
+    private final double stepMillis; // every tick's step; a recorded run's own when there is one
+
+    // Frame scheduler thread only
+    private VolatileImage backbuffer;
+    private GraphicsConfiguration viewConfig;
+    private double dpiScale = 1; // the screen's own device pixels per window pixel
+
+    // Written on the EDT, read by the frame scheduler thread
+    private volatile boolean leftPressed = false;
+    private volatile boolean rightPressed = false;
+
+    private volatile boolean isRunning = true;
+    private volatile boolean cleanedUp = false; // set on the EDT; a game that ends after it goes unreported
+    private volatile GameSnapshot latestSnapshot;
     private final GameOverListener listener;
 
     public interface GameOverListener {
-        void onGameOver(String playerName, int finalScore);
+        // source: the panel whose game ended, which may no longer be the one on screen
+        void onGameOver(GamePanel source, String playerName, int finalScore);
     }
 
     public GamePanel(String playerName, GameOverListener listener) {
+        this(playerName, null, null, false, listener);
+    }
+
+    // Races against the run recorded in ghostReplay, drawn as a translucent car
+    public GamePanel(String playerName, Path ghostReplay, GameOverListener listener) {
+        this(playerName, null, ghostReplay, false, listener);
+    }
+
+    // Plays a recorded game back in real time
+    public GamePanel(ReplayReader replay, GameOverListener listener) {
+        this(replay.getPlayerName(), replay, null, false, listener);
+    }
+
+    // Attract mode: a new game driven by the autopilot, not recorded
+    public static GamePanel attract(GameOverListener listener) {
+        return new GamePanel("Autopilot", null, null, true, listener);
+    }
+
+    private GamePanel(String playerName, ReplayReader replay, Path ghostReplay, boolean attract, GameOverListener listener) {
         this.playerName = playerName;
+        this.replay = replay;
         this.listener = listener;
 
-        setPreferredSize(new Dimension(WIDTH + 40, HEIGHT + 40));
+        setPreferredSize(new Dimension(VIEW_WIDTH, VIEW_HEIGHT));
         setBackground(new Color(8, 10, 16));
+        setLayout(new BorderLayout());
         setFocusable(true);
         addKeyListener(this);
         addComponentListener(this);
 
-        int laneWidth = roadWidth / lanes;
-        int playerW = 54;
-        int playerH = 92;
-        int baseY = HEIGHT - playerH - 50;
-
-        player = new PlayerCar(roadX + laneWidth / 2 - playerW / 2, baseY, playerW, playerH, 6.0, roadX, roadX + roadWidth);
-        opponentManager = new OpponentManager(lanes, roadX, roadWidth, HEIGHT);
-        scoreManager = new ScoreManager();
+        // Active rendering target: frames are drawn on the frame scheduler thread, not by repaint()
+        canvas = new Canvas() {
+            @Override public void addNotify() {
+                super.addNotify();
+                createBufferStrategy(2);
+            }
+        };
+        canvas.setIgnoreRepaint(true);
+        canvas.setBackground(getBackground());
+        canvas.setFocusable(true);
+        canvas.addKeyListener(this);
+        add(canvas, BorderLayout.CENTER);
+
+        if (ghostReplay != null) {
+            try {
+                ghost = new GhostCar(ghostReplay);
+            } catch (IOException e) {
+                System.err.println("Racing without a ghost: " + e);
+            }
+        }
+        // A ghost race runs on the ghost's seed, so the same traffic meets both cars
+        if (replay != null) {
+            sim = replay.newSimulation();
+        } else if (ghost != null) {
+            sim = ghost.newSimulation();
+            sim.setGhost(ghost);
+        } else {
+            sim = new GameSimulation(System.nanoTime());
+        }
+        PlayerCar player = new PlayerCar(GameSimulation.PLAYER_Y, GameSimulation.PLAYER_WIDTH, GameSimulation.PLAYER_HEIGHT);
+        renderer = new GameRenderer(GameSimulation.ROAD_X, GameSimulation.ROAD_WIDTH, GameSimulation.LANES, player, getFont());
+        sim.setTelemetry(TELEMETRY);
+        renderer.setTelemetry(TELEMETRY);
+        latestSnapshot = sim.captureSnapshot(0);
+
+        double recordedTick = replay != null ? replay.getTickMillis() : ghost != null ? ghost.getTickMillis() : 0;
+        int tickRate = recordedTick > 0 ? (int) Math.round(1000 / recordedTick) : TICK_RATE;
+        loop = new GameLoop(tickRate, FrameScheduler.BUDGET_FPS, this::step);
+        stepMillis = recordedTick > 0 ? recordedTick : loop.getTickMillis();
+        autopilot = attract ? new Autopilot(stepMillis, DifficultyCurve.DEFAULT) : null;
+        if (replay == null && !attract && ReplayWriter.ENABLED) {
+            try {
+                recorder = new ReplayWriter(ReplayWriter.newReplayFile(), sim.getSeed(), stepMillis, playerName);
+            } catch (IOException e) {
+                System.err.println("Not recording a replay: " + e);
+            }
+        }
+        loop.start();
+    }
 
-        timer = new Timer(16, this); // ~60 FPS
-        lastUpdateNanos = System.nanoTime();
-        timer.start();
+    private static Telemetry createTelemetry() {
+        Telemetry t = new Telemetry();
+        String dump = System.getProperty("neonrush.telemetry.dump");
+        if (dump != null && !dump.isBlank()) {
+            t.startDumping(Path.of(dump), Long.getLong("neonrush.telemetry.dumpSeconds", 10));
+        }
+        return t;
     }
 
     public void requestGameFocus() {
-        requestFocusInWindow();
+        canvas.requestFocusInWindow();
     }
 
+    // Once the frame scheduler no longer drives this panel
     public void cleanup() {
-        timer.stop();
+        cleanedUp = true;
+        loop.stop();
+        if (autopilot != null) autopilot.close();
+        if (backbuffer != null) backbuffer.flush();
+        qualityScaler.reset(); // shed effects are global; the welcome screen and next game get them back
+        closeReplay();
+        canvas.removeKeyListener(this);
         removeKeyListener(this);
         removeComponentListener(this);
     }
 
-    @Override
-    protected void paintComponent(Graphics g) {
-        super.paintComponent(g);
-        // Create drawing area with margin
-        Graphics2D g2 = (Graphics2D) g.create();
-        UiUtils.enableQuality(g2);
-
-        int ox = 20, oy = 20; // outer margin
-        g2.translate(ox, oy);
-
-        // Background gradient (sky glow)
-        GradientPaint bg = new GradientPaint(0, 0, new Color(16, 20, 36),
-                0, HEIGHT, new Color(6, 8, 16));
-        g2.setPaint(bg);
-        g2.fillRect(0, 0, WIDTH, HEIGHT);
-
-        drawRoad(g2);
-        drawHud(g2);
-
-        // Draw opponents and player
-        for (OpponentCar car : opponentManager.getOpponents()) {
-            car.draw(g2);
-        }
-        player.draw(g2);
-
-        g2.dispose();
-    }
-
-    private void drawRoad(Graphics2D g2) {
-        // Road gradient
-        GradientPaint roadPaint = new GradientPaint(roadX, 0, new Color(28, 28, 32),
-                roadX + roadWidth, 0, new Color(20, 20, 24));
-        g2.setPaint(roadPaint);
-        g2.fillRoundRect(roadX, 0, roadWidth, HEIGHT, 20, 20);
-
-        // Neon borders
-        g2.setColor(new Color(0, 255, 200, 60));
-        g2.setStroke(new BasicStroke(6f));
-        g2.drawRoundRect(roadX, 0, roadWidth, HEIGHT, 20, 20);
-
-        // Lane markers (moving illusion)
-        g2.setColor(new Color(240, 240, 240, 180));
-        g2.setStroke(new BasicStroke(6f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 0, new float[]{22f, 18f}, scoreManager.getDashPhase()));
-        int laneWidth = roadWidth / lanes;
-        for (int i = 1; i < lanes; i++) {
-            int x = roadX + i * laneWidth;
-            g2.drawLine(x, 0, x, HEIGHT);
-        }
-
-        // Side glow
-        g2.setPaint(new GradientPaint(roadX - 10, 0, new Color(0, 255, 200, 35),
-                roadX + 10, 0, new Color(0, 0, 0, 0)));
-        g2.fillRect(roadX - 12, 0, 12, HEIGHT);
-        g2.setPaint(new GradientPaint(roadX + roadWidth + 10, 0, new Color(0, 255, 200, 35),
-                roadX + roadWidth - 10, 0, new Color(0, 0, 0, 0)));
-        g2.fillRect(roadX + roadWidth, 0, 12, HEIGHT);
+    // Replay of this game once it has ended and been written completely, else null
+    public Path getRecordedReplay() {
+        return recordedReplay;
     }
 
-    private void drawHud(Graphics2D g2) {
-        String scoreStr = "Score: " + scoreManager.getScore();
-        String speedStr = String.format("Speed: %.1f", opponentManager.getCurrentSpeed());
-        String levelStr = "Level: " + opponentManager.getLevel();
+    // Latest published frame state; safe to read from any thread
+    public GameSnapshot getLatestSnapshot() {
+        return latestSnapshot;
+    }
 
-        // HUD background
-        int pad = 14;
-        Font f = getFont().deriveFont(Font.BOLD, 16f);
-        g2.setFont(f);
-        FontMetrics fm = g2.getFontMetrics();
-        int w1 = fm.stringWidth(scoreStr);
-        int w2 = fm.stringWidth(speedStr);
-        int w3 = fm.stringWidth(levelStr);
-        int maxw = Math.max(w1, Math.max(w2, w3)) + pad * 2;
-        int h = fm.getHeight() * 3 + pad * 2 - 6;
+    // Steps the simulation up to the frame's time, then draws it
+    @Override
+    public void onFrame(long frameNanos) {
+        double alpha = loop.advance(frameNanos);
+        if (loop.isRunning()) renderFrame(alpha);
+    }
 
-        int x = 16, y = 16;
-        UiUtils.drawPanel(g2, x, y, maxw, h, new Color(0, 0, 0, 120), new Color(0, 255, 200, 90));
+    private void renderFrame(double alpha) {
+        // Events only while a recording wants them, so unrecorded frames create nothing
+        GameEvents.FrameSpike spike = phaseEventsRecorded ? new GameEvents.FrameSpike() : null;
+        if (spike != null) spike.begin();
+        long frame = TELEMETRY.start();
+        long t = TELEMETRY.start();
+        GameSnapshot snap = sim.captureSnapshot(alpha);
+        latestSnapshot = snap;
+        TELEMETRY.end(Phase.SNAPSHOT, t);
+
+        BufferStrategy bs = canvas.getBufferStrategy();
+        int cw = canvas.getWidth(), ch = canvas.getHeight();
+        if (bs == null || !canvas.isShowing() || cw <= 0 || ch <= 0) return;
+        GraphicsConfiguration gc = canvas.getGraphicsConfiguration();
+        if (gc != viewConfig) {
+            viewConfig = gc;
+            dpiScale = gc.getDefaultTransform().getScaleX();
+            backbuffer = null;
+        }
 
-        g2.setColor(new Color(230, 250, 255));
-        g2.drawString(scoreStr, x + pad, y + fm.getAscent() + pad - 6);
-        g2.setColor(new Color(170, 230, 255));
-        g2.drawString(speedStr, x + pad, y + fm.getAscent() * 2 + pad - 2);
-        g2.setColor(new Color(255, 180, 220));
-        g2.drawString(levelStr, x + pad, y + fm.getAscent() * 3 + pad + 2);
+        // Letterboxed fit of the view; device pixels per logical pixel are whole 1/256ths so the
+        // layers and sprites baked for a scale are reused from frame to frame
+        double deviceScale = quantize(Math.min(cw / (double) VIEW_WIDTH, ch / (double) VIEW_HEIGHT) * dpiScale);
+        double renderScale = deviceScale;
+        if (RENDER_HEIGHT > 0) renderScale = Math.min(renderScale, quantize(RENDER_HEIGHT / (double) VIEW_HEIGHT));
+        if (!Quality.current().has(Quality.FULL_RES)) {
+            // Shed by the quality scaler: half the resolution, but not below the logical size
+            renderScale = Math.max(Math.min(renderScale, 1), quantize(renderScale / 2));
+        }
+        double fit = deviceScale / dpiScale;
+        int vw = (int) Math.round(VIEW_WIDTH * fit), vh = (int) Math.round(VIEW_HEIGHT * fit);
+        int vx = (cw - vw) / 2, vy = (ch - vh) / 2;
+
+        long drawStart = System.nanoTime();
+        long presentNanos = 0; // blocked in show(), left out of the scaler's frame time
+        do {
+            do {
+                Graphics2D g2 = (Graphics2D) bs.getDrawGraphics();
+                try {
+                    g2.setColor(getBackground());
+                    g2.fillRect(0, 0, cw, ch);
+                    if (renderScale == deviceScale) {
+                        g2.translate(vx, vy);
+                        g2.scale(fit, fit);
+                        render(g2, snap, deviceScale);
+                    } else {
+                        VolatileImage frameImage = renderBackbuffer(gc, snap, renderScale);
+                        g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                        g2.drawImage(frameImage, vx, vy, vw, vh, null);
+                    }
+                } finally {
+                    g2.dispose();
+                }
+            } while (bs.contentsRestored());
+            t = TELEMETRY.start();
+            long showStart = System.nanoTime();
+            bs.show();
+            presentNanos += System.nanoTime() - showStart;
+        } while (bs.contentsLost());
+        if (ADAPTIVE) qualityScaler.record(System.nanoTime() - drawStart - presentNanos);
+        Toolkit.getDefaultToolkit().sync();
+        TELEMETRY.end(Phase.PRESENT, t);
+        TELEMETRY.end(Phase.FRAME, frame);
+
+        if (spike != null) {
+            spike.end();
+            if (spike.shouldCommit()) {
+                spike.tick = snap.tick();
+                spike.opponents = snap.opponentCount();
+                spike.snapshot = TELEMETRY.lastNanos(Phase.SNAPSHOT);
+                spike.background = TELEMETRY.lastNanos(Phase.BACKGROUND);
+                spike.lanes = TELEMETRY.lastNanos(Phase.LANES);
+                spike.hud = TELEMETRY.lastNanos(Phase.HUD);
+                spike.cars = TELEMETRY.lastNanos(Phase.CARS);
+                spike.present = TELEMETRY.lastNanos(Phase.PRESENT);
+                spike.commit();
+            }
+        }
     }
 
-    @Override
-    public void actionPerformed(ActionEvent e) {
-        long now = System.nanoTime();
-        double dt = (now - lastUpdateNanos) / 1_000_000.0; // millis
-        if (dt < 0) dt = 0;
-        if (dt > 100) dt = 100; // clamp
-        lastUpdateNanos = now;
-
-        if (!isRunning) return;
+    private static double quantize(double scale) {
+        return Math.max(1, Math.floor(scale * 256)) / 256;
+    }
 
-        // Input -> move player
-        if (leftPressed && !rightPressed) player.moveLeft();
-        if (rightPressed && !leftPressed) player.moveRight();
+    // Draws the view into the reduced-resolution backbuffer, again if its contents are lost meanwhile
+    private VolatileImage renderBackbuffer(GraphicsConfiguration gc, GameSnapshot snap, double scale) {
+        // Volatile images carry the screen's HiDPI scale themselves
+        int w = (int) Math.ceil(VIEW_WIDTH * scale / dpiScale);
+        int h = (int) Math.ceil(VIEW_HEIGHT * scale / dpiScale);
+        do {
+            if (backbuffer == null || backbuffer.getWidth() != w || backbuffer.getHeight() != h
+                    || backbuffer.validate(gc) == VolatileImage.IMAGE_INCOMPATIBLE) {
+                if (backbuffer != null) backbuffer.flush();
+                backbuffer = gc.createCompatibleVolatileImage(w, h);
+            }
+            Graphics2D g = backbuffer.createGraphics();
+            try {
+                g.setColor(getBackground());
+                g.fillRect(0, 0, w, h);
+                g.scale(scale / dpiScale, scale / dpiScale);
+                render(g, snap, scale);
+            } finally {
+                g.dispose();
+            }
+        } while (backbuffer.contentsLost());
+        return backbuffer;
+    }
 
-        // Animate player (lights/wheels pulse)
-        player.tick(dt);
+    // g2 is in logical units, `scale` device pixels to one of them
+    private void render(Graphics2D g2, GameSnapshot snap, double scale) {
+        g2.translate(MARGIN, MARGIN);
+        renderer.render(g2, snap, scale);
+        if (autopilot != null) drawAttractBanner(g2);
+        if (showTelemetry) telemetryOverlay.draw(g2, WIDTH - 12, 12);
+        g2.translate(-MARGIN, -MARGIN);
+    }
 
-        // Update world
-        opponentManager.update(dt);
-        scoreManager.update(dt, opponentManager.getSpeedFactor());
+    private void drawAttractBanner(Graphics2D g2) {
+        String text = "DEMO  —  press any key to play";
+        g2.setFont(ATTRACT_FONT);
+        FontMetrics fm = g2.getFontMetrics();
+        int pad = 12;
+        int w = fm.stringWidth(text) + pad * 2, h = fm.getHeight() + pad;
+        int x = (WIDTH - w) / 2, y = HEIGHT - h - 40;
+        UiUtils.drawPanel(g2, x, y, w, h, new Color(0, 0, 0, 140), new Color(255, 120, 220, 110));
+        g2.setColor(new Color(255, 220, 245));
+        g2.drawString(text, x + pad, y + pad / 2 + fm.getAscent());
+    }
 
-        // Check pass events for scoring bonus
-        int passed = opponentManager.consumePassedCount(player.getY() + player.getHeight());
-        if (passed > 0) scoreManager.addPoints(passed * 5);
+    // One fixed simulation step, run on the frame scheduler thread
+    private void step(double dt) {
+        if (!isRunning) return;
+        dt = stepMillis; // a replay or ghost race steps exactly as recorded, not at the loop's rounding of it
+        GameEvents.Tick ev = phaseEventsRecorded ? new GameEvents.Tick() : null;
+        if (ev != null) ev.begin();
+        long tick = TELEMETRY.start();
+
+        long t = TELEMETRY.start();
+        int buttons = 0;
+        if (replay != null) {
+            buttons = replay.poll(sim);
+        } else if (autopilot != null) {
+            buttons = autopilot.poll(sim);
+        } else {
+            if (leftPressed) buttons |= InputSource.LEFT;
+            if (rightPressed) buttons |= InputSource.RIGHT;
+        }
+        TELEMETRY.end(Phase.INPUT, t);
+        if (recorder != null) {
+            try {
+                recorder.record(sim.getTick(), buttons);
+            } catch (IOException e) {
+                System.err.println("Replay recording stopped: " + e);
+                closeReplay();
+            }
+        }
 
-        // Collision?
-        if (opponentManager.collidesWith(player.getBounds())) {
+        boolean alive = sim.step(dt, buttons) && (replay == null || !replay.isFinished(sim.getTick()));
+        TELEMETRY.end(Phase.TICK, tick);
+
+        if (ev != null) {
+            ev.end();
+            if (ev.shouldCommit()) {
+                ev.tick = sim.getTick();
+                ev.dtMillis = dt;
+                ev.opponents = sim.getOpponentManager().getOpponentCount();
+                ev.level = sim.getLevel();
+                ev.input = TELEMETRY.lastNanos(Phase.INPUT);
+                ev.simulation = TELEMETRY.lastNanos(Phase.SIMULATION);
+                ev.collision = TELEMETRY.lastNanos(Phase.COLLISION);
+                ev.commit();
+            }
+        }
+        if (!alive) {
             gameOver();
-            return;
         }
+    }
+
+    // Abandoned games keep a replay without an end record
+    private void closeReplay() {
+        try {
+            if (recorder != null) recorder.close();
+            if (replay != null) replay.close();
+            if (ghost != null) ghost.close();
+        } catch (IOException e) {
+            System.err.println("Replay not closed: " + e);
+        }
+        recorder = null;
+    }
 
-        repaint();
+    // Shows or hides the timing overlay
+    private static void toggleTelemetry() {
+        showTelemetry = !showTelemetry;
+        updateTelemetry();
+    }
+
+    private static void updateTelemetry() {
+        TELEMETRY.setEnabled(showTelemetry || phaseEventsRecorded || TELEMETRY.isDumping());
     }
 
     private void gameOver() {
         isRunning = false;
-        timer.stop();
-        Toolkit.getDefaultToolkit().beep(); // simple crash sound
-        listener.onGameOver(playerName, scoreManager.getScore());
+        loop.stop();
+        if (autopilot != null) autopilot.close();
+        if (recorder != null) {
+            try {
+                recorder.finish(sim.result());
+                recordedReplay = recorder.getFile();
+            } catch (IOException e) {
+                System.err.println("Replay not finished: " + e);
+            }
+        }
+        closeReplay();
+        latestSnapshot = sim.captureSnapshot(1);
+        int finalScore = sim.getScore();
+        if (cleanedUp) return;
+        SwingUtilities.invokeLater(() -> {
+            if (cleanedUp) return; // cleaned up while this was queued
+            if (autopilot == null) Toolkit.getDefaultToolkit().beep(); // simple crash sound
+            listener.onGameOver(this, playerName, finalScore);
+        });
     }
 
     // KeyListener
@@ -203,6 +448,15 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener, Co
         if (!isRunning) return;
         if (e.getKeyCode() == KeyEvent.VK_LEFT || e.getKeyCode() == KeyEvent.VK_A) leftPressed = true;
         if (e.getKeyCode() == KeyEvent.VK_RIGHT || e.getKeyCode() == KeyEvent.VK_D) rightPressed = true;
+        // Toggle sprite cache vs vector car drawing (for frame-time comparison)
+        if (e.getKeyCode() == KeyEvent.VK_F2) SpriteCache.setEnabled(!SpriteCache.isEnabled());
+        // Debug overlay with per-layer draw times, and cached vs direct background layers
+        if (e.getKeyCode() == KeyEvent.VK_F3) renderer.setDebugOverlay(!renderer.isDebugOverlay());
+        if (e.getKeyCode() == KeyEvent.VK_F4) GameRenderer.setLayerCacheEnabled(!GameRenderer.isLayerCacheEnabled());
+        // Frame and tick time histograms with FPS
+        if (e.getKeyCode() == KeyEvent.VK_F5) toggleTelemetry();
+        // Cycle the quality preset for this session (low, medium, high)
+        if (e.getKeyCode() == KeyEvent.VK_F6) Quality.set(Quality.current().next());
     }
     @Override public void keyReleased(KeyEvent e) {
         if (e.getKeyCode() == KeyEvent.VK_LEFT || e.getKeyCode() == KeyEvent.VK_A) leftPressed = false;
@@ -212,11 +466,11 @@ public class GamePanel extends JPanel implements ActionListener, KeyListener, Co
     // Ensure focus when shown
     @Override public void addNotify() {
         super.addNotify();
-        requestFocusInWindow();
+        requestGameFocus();
     }
 
-    @Override public void componentResized(ComponentEvent e) { requestFocusInWindow(); }
+    @Override public void componentResized(ComponentEvent e) { requestGameFocus(); }
     @Override public void componentMoved(ComponentEvent e) { }
-    @Override public void componentShown(ComponentEvent e) { requestFocusInWindow(); }
+    @Override public void componentShown(ComponentEvent e) { requestGameFocus(); }
     @Override public void componentHidden(ComponentEvent e) { }
 }
\ No newline at end of file
@@ -0,0 +1,326 @@
+package com.sandesh.racer.ui;
+
+import com.sandesh.racer.logic.GameSnapshot;
+import com.sandesh.racer.model.OpponentCar;
+import com.sandesh.racer.model.PlayerCar;
+import com.sandesh.racer.util.AllocationCounter;
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.Telemetry;
+import com.sandesh.racer.util.Telemetry.Phase;
+import com.sandesh.racer.util.UiUtils;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+
+// Draws a GameSnapshot; holds no simulation state so it can run on any thread or offscreen.
+// Frames are composed in layers. Sky, road, borders and glows never change, so they are
+// rendered once into a cached image; the lane dashes are blitted from a pre-rendered strip
+// and the HUD is a cached panel repainted only when a value changes.
+public class GameRenderer {
+
+    // Layers in draw order
+    public enum Layer { BACKGROUND, LANES, HUD, CARS }
+
+    // Cached layers vs drawing everything each frame; toggle with F4 or -Dneonrush.layerCache=false
+    private static volatile boolean layerCache = !"false".equals(System.getProperty("neonrush.layerCache"));
+
+    private static final Color SKY_TOP = new Color(16, 20, 36);
+    private static final Color SKY_BOTTOM = new Color(6, 8, 16);
+    private static final Color ROAD_LEFT = new Color(28, 28, 32);
+    private static final Color ROAD_RIGHT = new Color(20, 20, 24);
+    private static final Color BORDER = new Color(0, 255, 200, 60);
+    private static final Color GLOW = new Color(0, 255, 200, 35);
+    private static final Color CLEAR = new Color(0, 0, 0, 0);
+    private static final Color DASH_COLOR = new Color(240, 240, 240, 180);
+    private static final BasicStroke BORDER_STROKE = new BasicStroke(6f);
+    private static final AlphaComposite GHOST = AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 0.35f);
+
+    private static final float DASH_WIDTH = 6f;
+    private static final float[] DASH_PATTERN = {22f, 18f};
+    private static final int DASH_PERIOD = 40;     // sum of the pattern
+    private static final int STRIP_PAD = 5;        // half the dash width plus antialiasing
+    private static final int STRIP_SUBPIXELS = 4;  // strips pre-shifted by quarter pixels keep the scroll smooth
+
+    private final int roadX;
+    private final int roadWidth;
+    private final int lanes;
+    private final PlayerCar player;
+    private final Font hudFont;
+    private final Font debugFont;
+    private final HudLayer hud;
+
+    private BufferedImage background;
+    private GraphicsConfiguration backgroundConfig;
+    private double layerScale = 1;   // device pixels per logical pixel the cached layers are baked at
+    private BufferedImage[] dashStrips;
+    private Quality layerQuality = Quality.current();
+
+    // Smoothed per-layer draw time, for the debug overlay
+    private final double[] layerNanos = new double[Layer.values().length];
+    private double allocBytes = 0; // per frame on the render thread, measured while the overlay is on
+    private volatile boolean debugOverlay = false; // toggled on the EDT, read by the frame scheduler thread
+    private Telemetry telemetry = Telemetry.DISABLED;
+
+    public GameRenderer(int roadX, int roadWidth, int lanes, PlayerCar player, Font baseFont) {
+        this.roadX = roadX;
+        this.roadWidth = roadWidth;
+        this.lanes = lanes;
+        this.player = player;
+        this.hudFont = baseFont.deriveFont(Font.BOLD, 16f);
+        this.debugFont = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+        this.hud = new HudLayer(hudFont);
+    }
+
+    public static boolean isLayerCacheEnabled() { return layerCache; }
+
+    public static void setLayerCacheEnabled(boolean enabled) { layerCache = enabled; }
+
+    public void setDebugOverlay(boolean on) { debugOverlay = on; }
+
+    public boolean isDebugOverlay() { return debugOverlay; }
+
+    // Also records the per-layer times into the telemetry histograms
+    public void setTelemetry(Telemetry telemetry) {
+        this.telemetry = telemetry != null ? telemetry : Telemetry.DISABLED;
+    }
+
+    // Average time spent drawing a layer over the last few dozen frames
+    public double getLayerMillis(Layer layer) {
+        return layerNanos[layer.ordinal()] / 1e6;
+    }
+
+    // Drops the cached layers, e.g. after a theme change
+    public void invalidateLayers() {
+        background = null;
+        dashStrips = null;
+        hud.invalidate();
+    }
+
+    // Draws one frame of the game area at the origin
+    public void render(Graphics2D g2, GameSnapshot snap) {
+        render(g2, snap, 1);
+    }
+
+    // Same, with g2 scaled by `scale` device pixels per logical pixel (a multiple of 1/256):
+    // cached layers and sprites are baked at that resolution and copied pixel for pixel
+    public void render(Graphics2D g2, GameSnapshot snap, double scale) {
+        Quality quality = Quality.current();
+        if (quality != layerQuality || scale != layerScale) {
+            // Cached layers were painted with the previous preset's hints or at another size
+            invalidateLayers();
+            layerQuality = quality;
+            layerScale = scale;
+        }
+        quality.apply(g2);
+        boolean cached = layerCache;
+        boolean overlay = debugOverlay;
+        long alloc0 = overlay ? AllocationCounter.currentThreadBytes() : 0;
+
+        long t0 = System.nanoTime();
+        if (cached) {
+            BufferedImage bg = background(g2.getDeviceConfiguration());
+            AffineTransform saved = SpriteCache.enterDeviceSpace(g2, scale);
+            g2.drawImage(bg, 0, 0, null);
+            SpriteCache.leaveDeviceSpace(g2, saved);
+        } else {
+            drawStatic(g2);
+        }
+        long t1 = System.nanoTime();
+        if (cached) {
+            blitLaneMarkers(g2, snap.dashPhase(), scale);
+        } else {
+            drawLaneMarkers(g2, snap.dashPhase());
+        }
+        long t2 = System.nanoTime();
+        if (cached) {
+            hud.draw(g2, snap.score(), snap.speed(), snap.level(), quality.ordinal() << 5 | Quality.shed(), scale);
+        } else {
+            drawHud(g2, snap);
+        }
+        long t3 = System.nanoTime();
+
+        // Draw opponents and player
+        for (int i = 0; i < snap.opponentCount(); i++) {
+            OpponentCar.draw(g2, (int) Math.round(snap.opponentX()[i]), (int) Math.round(snap.opponentY()[i]),
+                    snap.opponentWidth()[i], snap.opponentHeight()[i], snap.opponentPalette()[i], scale);
+        }
+        if (!Double.isNaN(snap.ghostX())) {
+            Composite c = g2.getComposite();
+            g2.setComposite(GHOST);
+            player.draw(g2, snap.ghostX(), snap.pulseMs(), snap.wheelPhase(), scale);
+            g2.setComposite(c);
+        }
+        player.draw(g2, snap.playerX(), snap.pulseMs(), snap.wheelPhase(), scale);
+        long t4 = System.nanoTime();
+
+        sample(Layer.BACKGROUND, t1 - t0);
+        sample(Layer.LANES, t2 - t1);
+        sample(Layer.HUD, t3 - t2);
+        sample(Layer.CARS, t4 - t3);
+        if (telemetry.isEnabled()) {
+            telemetry.record(Phase.BACKGROUND, t1 - t0);
+            telemetry.record(Phase.LANES, t2 - t1);
+            telemetry.record(Phase.HUD, t3 - t2);
+            telemetry.record(Phase.CARS, t4 - t3);
+        }
+
+        if (overlay) {
+            allocBytes += (AllocationCounter.currentThreadBytes() - alloc0 - allocBytes) / 32;
+            drawDebugOverlay(g2, cached);
+        }
+    }
+
+    private void sample(Layer layer, long nanos) {
+        int i = layer.ordinal();
+        layerNanos[i] += (nanos - layerNanos[i]) / 32;
+    }
+
+    // Static layer, re-rendered only when the target device or scale changes or after invalidateLayers()
+    private BufferedImage background(GraphicsConfiguration gc) {
+        if (background == null || gc != backgroundConfig) {
+            int w = (int) Math.ceil(GamePanel.WIDTH * layerScale);
+            int h = (int) Math.ceil(GamePanel.HEIGHT * layerScale);
+            BufferedImage img = gc != null
+                    ? gc.createCompatibleImage(w, h, Transparency.OPAQUE)
+                    : new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            Graphics2D bg = img.createGraphics();
+            UiUtils.enableQuality(bg);
+            bg.scale(layerScale, layerScale);
+            drawStatic(bg);
+            bg.dispose();
+            background = img;
+            backgroundConfig = gc;
+        }
+        return background;
+    }
+
+    // Everything but the lane dashes: sky, road, neon border and side glows
+    private void drawStatic(Graphics2D g2) {
+        // Background gradient (sky glow)
+        g2.setPaint(new GradientPaint(0, 0, SKY_TOP, 0, GamePanel.HEIGHT, SKY_BOTTOM));
+        g2.fillRect(0, 0, GamePanel.WIDTH, GamePanel.HEIGHT);
+
+        // Road gradient
+        g2.setPaint(new GradientPaint(roadX, 0, ROAD_LEFT, roadX + roadWidth, 0, ROAD_RIGHT));
+        g2.fillRoundRect(roadX, 0, roadWidth, GamePanel.HEIGHT, 20, 20);
+
+        // Neon borders
+        g2.setColor(BORDER);
+        g2.setStroke(BORDER_STROKE);
+        g2.drawRoundRect(roadX, 0, roadWidth, GamePanel.HEIGHT, 20, 20);
+
+        // Side glow (outside the road, so it never overlaps the lane dashes)
+        g2.setPaint(new GradientPaint(roadX - 10, 0, GLOW, roadX + 10, 0, CLEAR));
+        g2.fillRect(roadX - 12, 0, 12, GamePanel.HEIGHT);
+        g2.setPaint(new GradientPaint(roadX + roadWidth + 10, 0, GLOW, roadX + roadWidth - 10, 0, CLEAR));
+        g2.fillRect(roadX + roadWidth, 0, 12, GamePanel.HEIGHT);
+    }
+
+    // Lane markers (moving illusion), stroked directly
+    private void drawLaneMarkers(Graphics2D g2, float dashPhase) {
+        g2.setColor(DASH_COLOR);
+        g2.setStroke(new BasicStroke(DASH_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 0, DASH_PATTERN, dashPhase));
+        int laneWidth = roadWidth / lanes;
+        for (int i = 1; i < lanes; i++) {
+            int x = roadX + i * laneWidth;
+            g2.drawLine(x, 0, x, GamePanel.HEIGHT);
+        }
+    }
+
+    // Lane markers copied from a strip one dash period taller than the screen: scrolling
+    // by the phase is just a different source window. Works in device pixels, so the strips
+    // are pre-shifted by fractions of a device pixel.
+    private void blitLaneMarkers(Graphics2D g2, float dashPhase, double scale) {
+        if (dashStrips == null) dashStrips = renderDashStrips(scale);
+        double phase = dashPhase % DASH_PERIOD;
+        if (phase < 0) phase += DASH_PERIOD;
+        phase *= scale;
+        int whole = (int) phase;
+        BufferedImage strip = dashStrips[(int) ((phase - whole) * STRIP_SUBPIXELS)];
+
+        int w = strip.getWidth();
+        int h = (int) Math.round(GamePanel.HEIGHT * scale);
+        int laneWidth = roadWidth / lanes;
+        AffineTransform saved = SpriteCache.enterDeviceSpace(g2, scale);
+        for (int i = 1; i < lanes; i++) {
+            int x = (int) Math.round((roadX + i * laneWidth) * scale) - w / 2;
+            g2.drawImage(strip, x, 0, x + w, h, 0, whole, w, whole + h, null);
+        }
+        SpriteCache.leaveDeviceSpace(g2, saved);
+    }
+
+    private BufferedImage[] renderDashStrips(double scale) {
+        BufferedImage[] strips = new BufferedImage[STRIP_SUBPIXELS];
+        int pad = (int) Math.ceil(STRIP_PAD * scale);
+        for (int k = 0; k < STRIP_SUBPIXELS; k++) {
+            BufferedImage img = SpriteCache.createSpriteImage(pad * 2,
+                    (int) Math.ceil((GamePanel.HEIGHT + DASH_PERIOD) * scale) + 1);
+            Graphics2D sg = img.createGraphics();
+            UiUtils.enableQuality(sg);
+            sg.scale(scale, scale);
+            sg.setColor(DASH_COLOR);
+            sg.setStroke(new BasicStroke(DASH_WIDTH, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND, 0,
+                    DASH_PATTERN, (float) (k / (STRIP_SUBPIXELS * scale))));
+            double x = pad / scale;
+            sg.draw(new Line2D.Double(x, 0, x, img.getHeight() / scale));
+            sg.dispose();
+            strips[k] = img;
+        }
+        return strips;
+    }
+
+    private void drawHud(Graphics2D g2, GameSnapshot snap) {
+        String scoreStr = "Score: " + snap.score();
+        String speedStr = String.format("Speed: %.1f", snap.speed());
+        String levelStr = "Level: " + snap.level();
+        String detailStr = "Detail: " + QualityScaler.describe(Quality.current(), Quality.shed());
+
+        // HUD background
+        int pad = 14;
+        Font f = hudFont;
+        g2.setFont(f);
+        FontMetrics fm = g2.getFontMetrics();
+        int w1 = fm.stringWidth(scoreStr);
+        int w2 = fm.stringWidth(speedStr);
+        int w3 = fm.stringWidth(levelStr);
+        int w4 = fm.stringWidth(detailStr);
+        int maxw = Math.max(Math.max(w1, w2), Math.max(w3, w4)) + pad * 2;
+        int h = fm.getHeight() * 4 + pad * 2 - 6;
+
+        int x = 16, y = 16;
+        UiUtils.drawPanel(g2, x, y, maxw, h, new Color(0, 0, 0, 120), new Color(0, 255, 200, 90));
+
+        g2.setColor(new Color(230, 250, 255));
+        g2.drawString(scoreStr, x + pad, y + fm.getAscent() + pad - 6);
+        g2.setColor(new Color(170, 230, 255));
+        g2.drawString(speedStr, x + pad, y + fm.getAscent() * 2 + pad - 2);
+        g2.setColor(new Color(255, 180, 220));
+        g2.drawString(levelStr, x + pad, y + fm.getAscent() * 3 + pad + 2);
+        g2.setColor(new Color(150, 170, 190));
+        g2.drawString(detailStr, x + pad, y + fm.getAscent() * 4 + pad + 6);
+    }
+
+    // Per-layer timings and allocation, bottom left (F3); allocates itself, so it is measured out
+    private void drawDebugOverlay(Graphics2D g2, boolean cached) {
+        Layer[] layers = Layer.values();
+        int lines = layers.length + 3;
+        g2.setFont(debugFont);
+        FontMetrics fm = g2.getFontMetrics();
+        int lineH = fm.getHeight();
+        int x = 12, y = GamePanel.HEIGHT - 12 - lineH * lines;
+        g2.setColor(new Color(0, 0, 0, 150));
+        g2.fillRect(x - 6, y - 4, 170, lineH * lines + 8);
+        g2.setColor(new Color(0, 255, 200));
+        g2.drawString(cached ? "layers: cached (F4)" : "layers: direct (F4)", x, y + fm.getAscent());
+        for (int i = 0; i < layers.length; i++) {
+            String line = String.format("%-10s %6.3f ms", layers[i].name().toLowerCase(), getLayerMillis(layers[i]));
+            g2.drawString(line, x, y + lineH * (i + 1) + fm.getAscent());
+        }
+        String alloc = AllocationCounter.isSupported() ? String.format("%.0f B/frame", allocBytes) : "n/a";
+        g2.drawString("alloc      " + alloc, x, y + lineH * (layers.length + 1) + fm.getAscent());
+        g2.drawString("hud redraw " + hud.getRedraws(), x, y + lineH * (layers.length + 2) + fm.getAscent());
+    }
+}
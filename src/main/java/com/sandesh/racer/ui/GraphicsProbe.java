@@ -0,0 +1,324 @@
+package com.sandesh.racer.ui;
+
+import com.sandesh.racer.logic.GameSimulation;
+import com.sandesh.racer.logic.GameSnapshot;
+import com.sandesh.racer.model.OpponentCar;
+import com.sandesh.racer.model.PlayerCar;
+import com.sandesh.racer.util.Quality;
+
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+// Picks the Java2D pipeline and quality preset for this machine. A pipeline is fixed once AWT
+// starts, so each candidate is measured in a short-lived child JVM that draws game frames into a
+// window through a BufferStrategy under every preset and prints the mean time to draw one. The
+// best preset that fits the frame budget, on the fastest pipeline for it, is kept in
+// ~/.neon-rush/display.properties with a fingerprint of the machine and applied as system
+// properties before the game touches AWT. The probe runs again when the fingerprint changes or
+// with --probe.
+public final class GraphicsProbe {
+
+    // Candidates per platform; the first of each is the JDK's own default there
+    enum Pipeline {
+        D3D("sun.java2d.d3d", "true", null),
+        GDI("sun.java2d.d3d", "false", null),
+        METAL("sun.java2d.metal", "true", null),
+        XRENDER("sun.java2d.xrender", "true", "XRender pipeline enabled"),
+        X11("sun.java2d.xrender", "false", null),
+        OPENGL("sun.java2d.opengl", "true", "OpenGL pipeline enabled");
+
+        final String property;
+        final String value;
+        final String banner; // printed by the JDK when the property is "True" and the pipeline came up
+
+        Pipeline(String property, String value, String banner) {
+            this.property = property;
+            this.value = value;
+            this.banner = banner;
+        }
+
+        static List<Pipeline> candidates() {
+            String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+            if (os.startsWith("windows")) return List.of(D3D, OPENGL, GDI);
+            if (os.startsWith("mac")) return List.of(METAL, OPENGL);
+            return List.of(XRENDER, OPENGL, X11);
+        }
+    }
+
+    private static final Path FILE = Path.of(System.getProperty("user.home"), ".neon-rush", "display.properties");
+    private static final String[] PIPELINE_PROPERTIES = {
+            "sun.java2d.d3d", "sun.java2d.metal", "sun.java2d.xrender", "sun.java2d.opengl"
+    };
+    private static final long CHILD_TIMEOUT_SECONDS = 30;
+    private static final int WARMUP_FRAMES = 90;
+    private static final int MEASURED_FRAMES = 240;
+    private static final String RESULT = "NEONRUSH-FRAME";
+
+    private GraphicsProbe() { }
+
+    // Called first thing in main. -Dneonrush.pipeline=<name> and -Dneonrush.quality=<preset>
+    // override the stored choice, a sun.java2d pipeline flag on the command line is left alone,
+    // and -Dneonrush.probe=false skips probing and keeps the JDK defaults.
+    public static void configure(boolean forceProbe) {
+        if (GraphicsEnvironment.isHeadless()) return;
+        Properties stored = load();
+        if (forceProbe || (!"false".equals(System.getProperty("neonrush.probe"))
+                && !fingerprint().equals(stored.getProperty("machine")))) {
+            stored = probe();
+            save(stored);
+        }
+
+        Quality quality = Quality.parse(stored.getProperty("quality"), Quality.HIGH);
+        Quality.set(Quality.OVERRIDE != null ? Quality.OVERRIDE : quality);
+
+        String name = System.getProperty("neonrush.pipeline", stored.getProperty("pipeline"));
+        Pipeline pipeline = name == null ? null : parsePipeline(name);
+        if (pipeline == null || pipelineFlagGiven()) return;
+        System.setProperty(pipeline.property, pipeline.value);
+    }
+
+    private static Pipeline parsePipeline(String name) {
+        try {
+            return Pipeline.valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.err.println("Unknown graphics pipeline " + name + ", using the default");
+            return null;
+        }
+    }
+
+    private static boolean pipelineFlagGiven() {
+        for (String p : PIPELINE_PROPERTIES) {
+            if (System.getProperty(p) != null) return true;
+        }
+        return false;
+    }
+
+    // Measures every candidate pipeline and returns the settings to keep; with no pipeline able to
+    // draw only the fingerprint is kept, so the defaults are used without probing on every start
+    private static Properties probe() {
+        System.out.println("Measuring graphics pipelines, this happens once per machine...");
+        Map<Pipeline, double[]> results = new EnumMap<>(Pipeline.class);
+        for (Pipeline p : Pipeline.candidates()) {
+            double[] ms = measure(p);
+            if (ms != null) {
+                results.put(p, ms);
+                System.out.printf(Locale.ROOT, "  %-8s low %.2f ms  medium %.2f ms  high %.2f ms%n",
+                        p, ms[0], ms[1], ms[2]);
+            } else {
+                System.out.printf(Locale.ROOT, "  %-8s unavailable%n", p);
+            }
+        }
+        Properties props = new Properties();
+        props.setProperty("machine", fingerprint());
+        if (results.isEmpty()) return props;
+
+        // Best preset that meets the frame rate on some pipeline, then the fastest pipeline for it;
+        // when nothing keeps up, the fastest pipeline at LOW
+        double budget = 1000.0 / FrameScheduler.BUDGET_FPS;
+        Pipeline pipeline = null;
+        Quality quality = Quality.LOW;
+        for (int q = Quality.HIGH.ordinal(); q >= 0 && pipeline == null; q--) {
+            quality = Quality.values()[q];
+            pipeline = fastest(results, q, budget);
+        }
+        if (pipeline == null) pipeline = fastest(results, 0, Double.MAX_VALUE);
+        System.out.println("Using the " + pipeline + " pipeline at " + quality + " quality");
+
+        props.setProperty("pipeline", pipeline.name());
+        props.setProperty("quality", quality.name());
+        results.forEach((p, ms) -> {
+            for (Quality q : Quality.values()) {
+                props.setProperty("frameMs." + p + "." + q, String.format(Locale.ROOT, "%.3f", ms[q.ordinal()]));
+            }
+        });
+        return props;
+    }
+
+    private static Pipeline fastest(Map<Pipeline, double[]> results, int quality, double budget) {
+        Pipeline best = null;
+        for (Map.Entry<Pipeline, double[]> e : results.entrySet()) {
+            double ms = e.getValue()[quality];
+            if (ms <= budget && (best == null || ms < results.get(best)[quality])) best = e.getKey();
+        }
+        return best;
+    }
+
+    // Mean frame time per preset under one pipeline, from a child JVM; null if it failed to start
+    // the pipeline or to draw
+    private static double[] measure(Pipeline p) {
+        Path log = null;
+        try {
+            log = Files.createTempFile("neon-rush-probe", ".log");
+            List<String> cmd = new ArrayList<>();
+            cmd.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+            cmd.add("-cp");
+            cmd.add(System.getProperty("java.class.path"));
+            // "True" also makes the JDK print whether the pipeline could be enabled
+            cmd.add("-D" + p.property + "=" + (p.value.equals("true") ? "True" : p.value));
+            for (String name : System.getProperties().stringPropertyNames()) {
+                if (name.startsWith("neonrush.") && !name.equals("neonrush.quality")) {
+                    cmd.add("-D" + name + "=" + System.getProperty(name));
+                }
+            }
+            cmd.add(GraphicsProbe.class.getName());
+            Process child = new ProcessBuilder(cmd).redirectErrorStream(true).redirectOutput(log.toFile()).start();
+            if (!child.waitFor(CHILD_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+                child.destroyForcibly();
+                return null;
+            }
+            if (child.exitValue() != 0) return null;
+
+            double[] ms = new double[Quality.values().length];
+            int found = 0;
+            boolean enabled = p.banner == null;
+            for (String line : Files.readAllLines(log, StandardCharsets.UTF_8)) {
+                if (p.banner != null && line.contains(p.banner)) enabled = true;
+                if (!line.startsWith(RESULT + " ")) continue;
+                String[] f = line.split(" ");
+                Quality q = Quality.parse(f[1], null);
+                if (q != null) {
+                    ms[q.ordinal()] = Double.parseDouble(f[2]);
+                    found++;
+                }
+            }
+            return enabled && found == ms.length ? ms : null;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Graphics probe of " + p + " failed: " + e);
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } finally {
+            if (log != null) {
+                try {
+                    Files.deleteIfExists(log);
+                } catch (IOException ignored) {
+                }
+            }
+        }
+    }
+
+    // Stored choice goes stale when the OS, JDK or CPU count changes, or the probe measures
+    // differently (2: presenting the frame no longer counts)
+    private static String fingerprint() {
+        return String.join("|", "probe2", System.getProperty("os.name"), System.getProperty("os.version"),
+                System.getProperty("os.arch"), System.getProperty("java.vendor"), System.getProperty("java.version"),
+                Integer.toString(Runtime.getRuntime().availableProcessors()));
+    }
+
+    private static Properties load() {
+        Properties props = new Properties();
+        if (Files.exists(FILE)) {
+            try (InputStream in = Files.newInputStream(FILE)) {
+                props.load(in);
+            } catch (IOException e) {
+                System.err.println("Display settings not read: " + e);
+            }
+        }
+        return props;
+    }
+
+    private static void save(Properties props) {
+        try {
+            Files.createDirectories(FILE.getParent());
+            Path tmp = FILE.resolveSibling(FILE.getFileName() + ".tmp");
+            try (OutputStream out = Files.newOutputStream(tmp)) {
+                props.store(out, "Neon Rush display settings, chosen by the graphics probe (run with --probe to measure again)");
+            }
+            Files.move(tmp, FILE, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("Display settings not saved: " + e);
+        }
+    }
+
+    // Child side: draws a busy mid-game frame under each preset and prints the mean draw time
+    public static void main(String[] args) throws Exception {
+        int w = GameSimulation.WIDTH, h = GameSimulation.HEIGHT;
+        Frame window = new Frame("Neon Rush - checking graphics");
+        Canvas canvas = new Canvas();
+        canvas.setPreferredSize(new Dimension(w, h));
+        canvas.setIgnoreRepaint(true);
+        EventQueue.invokeAndWait(() -> {
+            window.setUndecorated(true);
+            window.add(canvas);
+            window.pack();
+            window.setLocationRelativeTo(null);
+            window.setVisible(true);
+            canvas.createBufferStrategy(2);
+        });
+        BufferStrategy bs = canvas.getBufferStrategy();
+        Font font = new Font(Font.SANS_SERIF, Font.PLAIN, 12);
+
+        for (Quality q : Quality.values()) {
+            Quality.set(q);
+            PlayerCar player = new PlayerCar(GameSimulation.PLAYER_Y, GameSimulation.PLAYER_WIDTH, GameSimulation.PLAYER_HEIGHT);
+            GameRenderer renderer = new GameRenderer(GameSimulation.ROAD_X, GameSimulation.ROAD_WIDTH,
+                    GameSimulation.LANES, player, font);
+            for (int i = 0; i < WARMUP_FRAMES; i++) drawFrame(bs, renderer, i);
+            long drawNanos = 0;
+            for (int i = 0; i < MEASURED_FRAMES; i++) drawNanos += drawFrame(bs, renderer, WARMUP_FRAMES + i);
+            double ms = drawNanos / 1e6 / MEASURED_FRAMES;
+            System.out.printf(Locale.ROOT, "%s %s %.3f%n", RESULT, q, ms);
+        }
+        window.dispose();
+        System.exit(0);
+    }
+
+    // Time spent drawing the frame into the back buffer. Presenting it is left out: a flip that
+    // waits for vsync takes a display period whatever the preset, which would hide the differences
+    // the choice is made on (the same reason QualityScaler leaves it out).
+    private static long drawFrame(BufferStrategy bs, GameRenderer renderer, int frame) {
+        GameSnapshot snap = snapshot(frame);
+        long drawNanos = 0;
+        do {
+            do {
+                long start = System.nanoTime();
+                Graphics2D g2 = (Graphics2D) bs.getDrawGraphics();
+                try {
+                    renderer.render(g2, snap);
+                } finally {
+                    g2.dispose();
+                }
+                drawNanos += System.nanoTime() - start;
+            } while (bs.contentsRestored());
+            bs.show();
+        } while (bs.contentsLost());
+        Toolkit.getDefaultToolkit().sync();
+        return drawNanos;
+    }
+
+    // Eight opponents over the three lanes, all moving, with the score changing every frame
+    private static GameSnapshot snapshot(int frame) {
+        int n = 8;
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        int[] ws = new int[n];
+        int[] hs = new int[n];
+        int[] palettes = new int[n];
+        int laneWidth = GameSimulation.ROAD_WIDTH / GameSimulation.LANES;
+        for (int i = 0; i < n; i++) {
+            ws[i] = 52 + i % 8;
+            hs[i] = 86 + i % 10;
+            xs[i] = GameSimulation.ROAD_X + laneWidth * (i % GameSimulation.LANES) + laneWidth / 2 - ws[i] / 2;
+            ys[i] = -80 + (i * 95 + frame * 6) % (GameSimulation.HEIGHT + 160);
+            palettes[i] = i % OpponentCar.PALETTE_SIZE;
+        }
+        double playerX = GameSimulation.PLAYER_START_X + Math.sin(frame * 0.05) * laneWidth;
+        return new GameSnapshot(frame, frame * 3, 4, 5.2, (frame * 6) % 40f, playerX, Double.NaN,
+                frame * 16.0, frame * 5.0, n, xs, ys, ws, hs, palettes);
+    }
+}
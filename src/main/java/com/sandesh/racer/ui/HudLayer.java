@@ -0,0 +1,163 @@
+package com.sandesh.racer.ui;
+
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.UiUtils;
+
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+// Score/speed/level/detail panel kept as one cached image. A field is laid out again only when its
+// displayed value changes, and only its band of the image is repainted; other frames cost a
+// single drawImage.
+class HudLayer {
+
+    private static final int X = 16, Y = 16, PAD = 14;
+    private static final int MARGIN = 2;                 // room for the panel's border stroke
+    private static final int SHADOW_X = 3, SHADOW_Y = 4; // UiUtils.drawPanel shadow offset
+    private static final Color PANEL_BG = new Color(0, 0, 0, 120);
+    private static final Color PANEL_GLOW = new Color(0, 255, 200, 90);
+    private static final Color[] FIELD_COLORS = {
+            new Color(230, 250, 255), // score
+            new Color(170, 230, 255), // speed
+            new Color(255, 180, 220), // level
+            new Color(150, 170, 190)  // detail
+    };
+    private static final int FIELDS = FIELD_COLORS.length;
+
+    private final Font font;
+    private final FontRenderContext frc = new FontRenderContext(null, true, false); // matches enableQuality
+    private final int ascent, descent, lineHeight;
+
+    private final long[] values = new long[FIELDS];          // displayed values; speed in tenths
+    private final TextLayout[] layouts = new TextLayout[FIELDS];
+    private BufferedImage panel; // background only, to restore under a changed field
+    private BufferedImage hud;   // panel with the text on it
+    private int panelWidth = -1;
+    private double scale = 1;    // device pixels per logical pixel the images are baked at
+    private long redraws = 0;
+
+    HudLayer(Font font) {
+        this.font = font;
+        BufferedImage probe = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = probe.createGraphics();
+        UiUtils.enableQuality(g);
+        FontMetrics fm = g.getFontMetrics(font);
+        ascent = fm.getAscent();
+        descent = fm.getDescent();
+        lineHeight = fm.getHeight();
+        g.dispose();
+        Arrays.fill(values, Long.MIN_VALUE);
+    }
+
+    // detail: quality preset ordinal << 5 | effects shed
+    void draw(Graphics2D g2, int score, double speed, int level, int detail, double scale) {
+        if (scale != this.scale) {
+            this.scale = scale;
+            invalidate();
+        }
+        int changed = 0;
+        changed |= update(0, score);
+        changed |= update(1, Math.round(speed * 10));
+        changed |= update(2, level);
+        changed |= update(3, detail);
+
+        if (changed != 0) {
+            float widest = 0;
+            for (TextLayout l : layouts) widest = Math.max(widest, l.getAdvance());
+            int w = (int) Math.ceil(widest) + PAD * 2;
+            if (w != panelWidth) {
+                rebuild(w);
+            } else {
+                for (int i = 0; i < FIELDS; i++) {
+                    if ((changed & (1 << i)) != 0) repaintBand(i);
+                }
+            }
+        }
+        AffineTransform saved = SpriteCache.enterDeviceSpace(g2, scale);
+        g2.drawImage(hud, (int) Math.round((X - MARGIN) * scale), (int) Math.round((Y - MARGIN) * scale), null);
+        SpriteCache.leaveDeviceSpace(g2, saved);
+    }
+
+    // Lays out and paints the whole panel again on the next draw, e.g. after a quality change
+    void invalidate() {
+        Arrays.fill(values, Long.MIN_VALUE);
+        panelWidth = -1;
+    }
+
+    // Image repaints so far, for the debug overlay
+    long getRedraws() { return redraws; }
+
+    private int update(int field, long value) {
+        if (values[field] == value) return 0;
+        values[field] = value;
+        layouts[field] = new TextLayout(text(field, value), font, frc);
+        return 1 << field;
+    }
+
+    private static String text(int field, long value) {
+        switch (field) {
+            case 0: return "Score: " + value;
+            case 1: return "Speed: " + (value < 0 ? "-" : "") + Math.abs(value) / 10 + "." + Math.abs(value) % 10;
+            case 2: return "Level: " + value;
+            default: return "Detail: " + QualityScaler.describe(Quality.values()[(int) value >> 5], (int) value & 0x1F);
+        }
+    }
+
+    // Baseline of a field inside the image (same spacing as the old per-frame HUD)
+    private int baseline(int field) {
+        return MARGIN + ascent * (field + 1) + PAD - 6 + field * 4;
+    }
+
+    private void rebuild(int w) {
+        int h = lineHeight * FIELDS + PAD * 2 - 6;
+        panelWidth = w;
+        panel = SpriteCache.createSpriteImage((int) Math.ceil((w + MARGIN * 2 + SHADOW_X) * scale),
+                (int) Math.ceil((h + MARGIN * 2 + SHADOW_Y) * scale));
+        Graphics2D g = panel.createGraphics();
+        UiUtils.enableQuality(g);
+        g.scale(scale, scale);
+        UiUtils.drawPanel(g, MARGIN, MARGIN, w, h, PANEL_BG, PANEL_GLOW);
+        g.dispose();
+
+        hud = SpriteCache.createSpriteImage(panel.getWidth(), panel.getHeight());
+        g = hud.createGraphics();
+        g.drawImage(panel, 0, 0, null);
+        UiUtils.enableQuality(g);
+        g.scale(scale, scale);
+        drawFields(g);
+        g.dispose();
+        redraws++;
+    }
+
+    // Restores the panel under one field's text band and redraws the text clipped to it, so a
+    // neighbour's descenders reaching into the band are kept
+    private void repaintBand(int field) {
+        int top = baseline(field) - ascent;
+        int bandH = ascent + descent;
+        int left = MARGIN + PAD / 2;
+        int bandW = panelWidth - PAD;
+        Graphics2D g = hud.createGraphics();
+        int x0 = (int) Math.floor(left * scale), y0 = (int) Math.floor(top * scale);
+        g.clipRect(x0, y0, (int) Math.ceil((left + bandW) * scale) - x0, (int) Math.ceil((top + bandH) * scale) - y0);
+        g.setComposite(AlphaComposite.Src);
+        g.drawImage(panel, 0, 0, null);
+        g.setComposite(AlphaComposite.SrcOver);
+        UiUtils.enableQuality(g);
+        g.scale(scale, scale);
+        drawFields(g);
+        g.dispose();
+        redraws++;
+    }
+
+    private void drawFields(Graphics2D g) {
+        for (int i = 0; i < FIELDS; i++) {
+            g.setColor(FIELD_COLORS[i]);
+            layouts[i].draw(g, MARGIN + PAD, baseline(i));
+        }
+    }
+}
@@ -1,24 +1,52 @@
 package com.sandesh.racer.ui;
 
-import com.sandesh.racer.logic.HighScoreManager;
+import com.sandesh.racer.logic.HighScoreManager.ScoreEntry;
+import com.sandesh.racer.logic.ReplayReader;
+import com.sandesh.racer.logic.ScoreService;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseEvent;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Objects;
 
 public class MainFrame extends JFrame implements GamePanel.GameOverListener {
 
+    // Seconds idle on the welcome screen before the autopilot plays a demo game,
+    // -Dneonrush.attractSeconds; 0 turns attract mode off
+    private static final int ATTRACT_SECONDS = Integer.getInteger("neonrush.attractSeconds", 30);
+
     private final CardLayout cardLayout = new CardLayout();
     private final JPanel cards = new JPanel(cardLayout);
     private final WelcomePanel welcomePanel;
     private GamePanel gamePanel;
     private final GameOverPanel gameOverPanel;
-    private final HighScoreManager highScoreManager = new HighScoreManager();
+    private final ScoreService scoreService = new ScoreService(10);
+    private int gameOverCount = 0; // so a late save result cannot overwrite a newer game over
+    private boolean replaying = false;
+    private Rectangle windowedBounds; // while full screen, where the window goes back to
+
+    // One thread animates whichever card is showing; nothing runs while the window is minimized
+    private final FrameScheduler scheduler = new FrameScheduler();
+    private FrameScheduler.FrameListener animated;
+
+    private final Timer attractTimer;
+    private boolean attract = false; // a demo game is showing
 
     public MainFrame() {
         super("Neon Rush — Car Racing");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setResizable(false);
+        // Any size: the game scales its view to fit
+        addWindowListener(new WindowAdapter() {
+            @Override public void windowClosing(WindowEvent e) { scoreService.close(); }
+            @Override public void windowIconified(WindowEvent e) { scheduler.setActive(null); }
+            @Override public void windowDeiconified(WindowEvent e) { scheduler.setActive(animated); }
+        });
 
         welcomePanel = new WelcomePanel(this::startGame);
         gameOverPanel = new GameOverPanel(this::restart, this::exitApp);
@@ -28,12 +56,85 @@ public class MainFrame extends JFrame implements GamePanel.GameOverListener {
         setContentPane(cards);
 
         pack();
-        setMinimumSize(new Dimension(520, 800)); // window border margin
+        setMinimumSize(new Dimension(GamePanel.WIDTH / 2, GamePanel.HEIGHT / 2));
+
+        // F11 toggles full screen whichever card (or heavyweight canvas) has the focus
+        KeyboardFocusManager.getCurrentKeyboardFocusManager().addKeyEventDispatcher(e -> {
+            if (e.getID() != KeyEvent.KEY_PRESSED || e.getKeyCode() != KeyEvent.VK_F11 || !isActive()) return false;
+            setFullScreen(!isFullScreen());
+            return true;
+        });
+
+        // Attract mode: any input on the welcome screen restarts the idle countdown, and a key or
+        // click during a demo ends it
+        attractTimer = new Timer(Math.max(1, ATTRACT_SECONDS) * 1000, e -> startAttract());
+        attractTimer.setRepeats(false);
+        if (ATTRACT_SECONDS > 0) {
+            Toolkit.getDefaultToolkit().addAWTEventListener(this::onUserInput,
+                    AWTEvent.KEY_EVENT_MASK | AWTEvent.MOUSE_EVENT_MASK | AWTEvent.MOUSE_MOTION_EVENT_MASK);
+        }
 
         showWelcome();
     }
 
+    // Input to any of the app's windows, on the EDT
+    private void onUserInput(AWTEvent e) {
+        if (attract) {
+            boolean key = e.getID() == KeyEvent.KEY_PRESSED && ((KeyEvent) e).getKeyCode() != KeyEvent.VK_F11;
+            if (key || e.getID() == MouseEvent.MOUSE_PRESSED) SwingUtilities.invokeLater(this::stopAttract);
+        } else if (attractTimer.isRunning()) {
+            attractTimer.restart();
+        }
+    }
+
+    private void startAttract() {
+        attract = true;
+        showGame(GamePanel.attract(this), false);
+    }
+
+    private void stopAttract() {
+        if (!attract) return;
+        attract = false;
+        animate(null);
+        if (gamePanel != null) {
+            gamePanel.cleanup();
+            cards.remove(gamePanel);
+            gamePanel = null;
+        }
+        showWelcome();
+    }
+
+    public boolean isFullScreen() {
+        return getGraphicsConfiguration().getDevice().getFullScreenWindow() == this;
+    }
+
+    // Full screen on the window's current screen, or back to the window it was
+    public void setFullScreen(boolean on) {
+        GraphicsDevice device = getGraphicsConfiguration().getDevice();
+        if (on == isFullScreen()) return;
+        if (on) {
+            windowedBounds = getBounds();
+            if (device.isFullScreenSupported()) {
+                device.setFullScreenWindow(this);
+            } else {
+                setExtendedState(getExtendedState() | MAXIMIZED_BOTH);
+            }
+        } else {
+            device.setFullScreenWindow(null);
+            if (windowedBounds != null) setBounds(windowedBounds);
+        }
+        if (gamePanel != null) gamePanel.requestGameFocus();
+    }
+
+    // The card the frame scheduler drives, or null for a static one
+    private void animate(FrameScheduler.FrameListener card) {
+        animated = card;
+        scheduler.setActive((getExtendedState() & ICONIFIED) != 0 ? null : card);
+    }
+
     private void showWelcome() {
+        if (ATTRACT_SECONDS > 0) attractTimer.restart();
+        animate(welcomePanel);
         cardLayout.show(cards, "welcome");
         welcomePanel.requestFocusInWindow();
     }
@@ -44,14 +145,47 @@ public class MainFrame extends JFrame implements GamePanel.GameOverListener {
                     JOptionPane.WARNING_MESSAGE);
             return;
         }
+        Path ghost = welcomePanel.isRaceGhost() ? bestGhost(playerName.trim()) : null;
+        showGame(new GamePanel(playerName, ghost, this), false);
+    }
+
+    // Replay of the player's best saved run, else of the best run on the board that has one
+    private Path bestGhost(String playerName) {
+        Path best = null;
+        for (ScoreEntry e : scoreService.preview(100)) {
+            if (e.ghost() == null || !Files.exists(e.ghost())) continue;
+            if (e.name().equalsIgnoreCase(playerName)) return e.ghost();
+            if (best == null) best = e.ghost();
+        }
+        return best;
+    }
+
+    // Watches a recorded game; its score is shown but not saved
+    public void startReplay(Path file) {
+        ReplayReader replay;
+        try {
+            replay = new ReplayReader(file);
+        } catch (IOException e) {
+            JOptionPane.showMessageDialog(this, "Could not open replay: " + e.getMessage(), "Replay",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
+        }
+        showGame(new GamePanel(replay, this), true);
+    }
+
+    private void showGame(GamePanel panel, boolean replay) {
+        attractTimer.stop();
+        animate(null);
         if (gamePanel != null) {
-            cards.remove(gamePanel);
             gamePanel.cleanup();
+            cards.remove(gamePanel);
         }
-        gamePanel = new GamePanel(playerName, this);
+        gamePanel = panel;
+        replaying = replay;
         cards.add(gamePanel, "game");
         cardLayout.show(cards, "game");
-        pack();
+        animate(gamePanel);
+        cards.revalidate(); // keeps the window's size; the game fits itself to it
         gamePanel.requestGameFocus();
     }
 
@@ -63,15 +197,26 @@ public class MainFrame extends JFrame implements GamePanel.GameOverListener {
     }
 
     private void exitApp() {
+        scoreService.close();
         dispose();
         System.exit(0);
     }
 
     @Override
-    public void onGameOver(String playerName, int finalScore) {
-        // Save to high score list
-        highScoreManager.addScore(playerName, finalScore);
-        gameOverPanel.setResults(playerName, finalScore, highScoreManager.getTopScores(10));
+    public void onGameOver(GamePanel source, String playerName, int finalScore) {
+        if (source != gamePanel) return; // a game already taken off screen, e.g. a demo the user interrupted
+        if (attract) {
+            startAttract(); // the next demo game
+            return;
+        }
+        int shown = ++gameOverCount;
+        if (replaying) {
+            gameOverPanel.setResults(playerName, finalScore, scoreService.preview(10));
+            gameOverPanel.setSaveStatus("Replay finished, score not saved");
+        } else {
+            submitScore(shown, playerName, finalScore, gamePanel != null ? gamePanel.getRecordedReplay() : null);
+        }
+        animate(null);
         cardLayout.show(cards, "gameover");
         gameOverPanel.requestFocusInWindow();
 
@@ -79,4 +224,19 @@ public class MainFrame extends JFrame implements GamePanel.GameOverListener {
             gamePanel.cleanup();
         }
     }
+
+    // Save to high score list in the background; show the provisional ranking right away
+    private void submitScore(int shown, String playerName, int finalScore, Path replay) {
+        scoreService.submit(playerName, finalScore, replay).whenComplete((ranked, error) -> SwingUtilities.invokeLater(() -> {
+            if (shown != gameOverCount) return;
+            if (error != null) {
+                gameOverPanel.setSaveStatus("Score not saved: " + error.getMessage());
+            } else {
+                gameOverPanel.setResults(playerName, finalScore, ranked.topScores());
+                gameOverPanel.setSaveStatus(ranked.durable() ? "Score saved" : "Score kept for this session only");
+            }
+        }));
+        gameOverPanel.setResults(playerName, finalScore, scoreService.preview(10));
+        gameOverPanel.setSaveStatus("Saving score…");
+    }
 }
\ No newline at end of file
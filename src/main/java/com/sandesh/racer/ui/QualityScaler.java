@@ -0,0 +1,110 @@
+package com.sandesh.racer.ui;
+
+import com.sandesh.racer.util.Quality;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+// Sheds expensive effects while frames run over budget and brings them back once there is
+// headroom. Frame times go into a moving window of about a second; a tier is dropped when the
+// window's mean passes 85% of the frame period, and restored only after the mean has stayed under
+// half of it for a couple of seconds. A restore that has to be dropped again straight away doubles
+// that wait, so a scene right at the edge does not flicker between tiers.
+class QualityScaler {
+
+    // Effects shed at each tier, cheapest to lose first
+    private static final int[] SHED = {
+            0,
+            Quality.GLOWS,
+            Quality.GLOWS | Quality.CONES,
+            Quality.GLOWS | Quality.CONES | Quality.SHADOWS,
+            Quality.GLOWS | Quality.CONES | Quality.SHADOWS | Quality.ANTIALIAS,
+            Quality.ALL
+    };
+    private static final String[] TIER_NAMES = { "", "no glow", "no cones", "no shadows", "no AA", "half res" };
+
+    private static final int WINDOW = 60;
+    private static final double DROP_AT = 0.85;    // of the frame period
+    private static final double RESTORE_AT = 0.5;
+    private static final int MIN_CALM_FRAMES = 2 * WINDOW;
+    private static final int MAX_CALM_FRAMES = 64 * WINDOW;
+
+    private final long budgetNanos;
+    private final long[] window = new long[WINDOW];
+    private int pos = 0;
+    private int count = 0;
+    private long sum = 0;
+
+    private int tier = 0;
+    private int framesAtTier = 0;    // frames drawn since the last change
+    private int calmFrames = 0;      // consecutive frames with the mean under RESTORE_AT
+    private int neededCalm = MIN_CALM_FRAMES;
+    private boolean restored = false; // the last change brought effects back
+
+    QualityScaler(int renderRate) {
+        this.budgetNanos = 1_000_000_000L / renderRate;
+    }
+
+    // Time spent drawing one frame, not waiting for it to be presented: a flip that waits for
+    // vsync takes up the rest of the display period whatever the frame cost
+    void record(long frameNanos) {
+        sum += frameNanos - window[pos];
+        window[pos] = frameNanos;
+        pos = (pos + 1) % WINDOW;
+        if (count < WINDOW) count++;
+        framesAtTier++;
+        // Judge a tier only once the window holds nothing but frames drawn at it
+        if (count < WINDOW || framesAtTier < WINDOW) return;
+
+        long mean = sum / WINDOW;
+        if (mean > budgetNanos * DROP_AT) {
+            calmFrames = 0;
+            int next = nextTier(tier, 1);
+            if (next == tier) return;
+            if (restored && framesAtTier < 2 * WINDOW) neededCalm = Math.min(neededCalm * 2, MAX_CALM_FRAMES);
+            change(next, false);
+        } else if (mean < budgetNanos * RESTORE_AT && tier > 0) {
+            if (++calmFrames >= neededCalm) change(nextTier(tier, -1), true);
+        } else {
+            calmFrames = 0;
+        }
+    }
+
+    int getTier() { return tier; }
+
+    // Back to every effect of the preset, e.g. when the game ends
+    void reset() {
+        change(0, false);
+        neededCalm = MIN_CALM_FRAMES;
+        count = 0;
+        sum = 0;
+        Arrays.fill(window, 0);
+    }
+
+    // Next tier in a direction that changes what is drawn under the current preset
+    private static int nextTier(int tier, int step) {
+        int preset = Quality.current().presetEffects();
+        int drawn = preset & ~SHED[tier];
+        for (int t = tier + step; t >= 0 && t < SHED.length; t += step) {
+            if ((preset & ~SHED[t]) != drawn) return t;
+        }
+        return step < 0 ? 0 : tier;
+    }
+
+    private void change(int newTier, boolean restore) {
+        tier = newTier;
+        restored = restore;
+        framesAtTier = 0;
+        calmFrames = 0;
+        Quality.setShed(SHED[newTier]);
+    }
+
+    // HUD text for a preset and the effects shed from it
+    static String describe(Quality quality, int shed) {
+        String name = quality.name().toLowerCase(Locale.ROOT);
+        for (int t = SHED.length - 1; t > 0; t--) {
+            if (shed == SHED[t]) return name + ", " + TIER_NAMES[t];
+        }
+        return name;
+    }
+}
@@ -0,0 +1,72 @@
+package com.sandesh.racer.ui;
+
+import com.sandesh.racer.util.LatencyHistogram;
+import com.sandesh.racer.util.Telemetry;
+import com.sandesh.racer.util.Telemetry.Phase;
+
+import java.awt.*;
+
+// FPS, tick rate and p50/p99/max per phase over the last second (F5). The text is rebuilt
+// once per window from the difference of two histogram copies; other frames only draw it.
+class TelemetryOverlay {
+
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    private static final Color BACK = new Color(0, 0, 0, 160);
+    private static final Color TEXT = new Color(255, 220, 120);
+
+    private final Telemetry telemetry;
+    private final Font font = new Font(Font.MONOSPACED, Font.PLAIN, 11);
+    private final long[][] previous = new long[Phase.values().length][LatencyHistogram.BUCKETS];
+    private final long[] current = new long[LatencyHistogram.BUCKETS];
+    private final String[] lines = new String[Phase.values().length + 2];
+    private long windowStart = System.nanoTime();
+
+    TelemetryOverlay(Telemetry telemetry) {
+        this.telemetry = telemetry;
+        for (Phase p : Phase.values()) telemetry.histogram(p).copyCounts(previous[p.ordinal()]);
+        lines[0] = "collecting...";
+    }
+
+    void draw(Graphics2D g2, int right, int top) {
+        long now = System.nanoTime();
+        if (now - windowStart >= WINDOW_NANOS) {
+            rebuild((now - windowStart) / 1e9);
+            windowStart = now;
+        }
+        g2.setFont(font);
+        FontMetrics fm = g2.getFontMetrics();
+        int lineH = fm.getHeight();
+        int w = fm.charWidth('0') * 38;
+        int x = right - w;
+        g2.setColor(BACK);
+        g2.fillRect(x - 6, top - 4, w + 12, lineH * lines.length + 8);
+        g2.setColor(TEXT);
+        for (int i = 0; i < lines.length; i++) {
+            if (lines[i] != null) g2.drawString(lines[i], x, top + lineH * i + fm.getAscent());
+        }
+    }
+
+    private void rebuild(double seconds) {
+        Phase[] phases = Phase.values();
+        long frames = 0, ticks = 0;
+        lines[1] = String.format("%-10s %7s %7s %7s", "phase", "p50 us", "p99 us", "max us");
+        for (Phase p : phases) {
+            long[] prev = previous[p.ordinal()];
+            telemetry.histogram(p).copyCounts(current);
+            long count = 0;
+            for (int i = 0; i < current.length; i++) {
+                long c = current[i];
+                current[i] = c - prev[i];
+                prev[i] = c;
+                count += current[i];
+            }
+            if (p == Phase.FRAME) frames = count;
+            if (p == Phase.TICK) ticks = count;
+            lines[p.ordinal() + 2] = String.format("%-10s %7.1f %7.1f %7.1f", p.name().toLowerCase(),
+                    LatencyHistogram.percentile(current, count, 0.50) / 1e3,
+                    LatencyHistogram.percentile(current, count, 0.99) / 1e3,
+                    LatencyHistogram.highest(current) / 1e3);
+        }
+        lines[0] = String.format("FPS %5.1f   TPS %5.1f   (F5)", frames / seconds, ticks / seconds);
+    }
+}
@@ -1,19 +1,27 @@
 package com.sandesh.racer.ui;
 
+import com.sandesh.racer.util.Quality;
+import com.sandesh.racer.util.SpriteCache;
+import com.sandesh.racer.util.UiUtils;
+
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.awt.font.GlyphVector;
+import java.awt.event.HierarchyEvent;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Point2D;
 import java.awt.geom.RoundRectangle2D;
+import java.awt.image.BufferedImage;
 import java.util.function.Consumer;
 
-public class WelcomePanel extends JPanel {
+public class WelcomePanel extends JPanel implements FrameScheduler.FrameListener {
 
     private final JTextField nameField = new PromptTextField("Enter your name…", 18);
     private final JButton startBtn = new NeonButton("Start Game");
     private final JButton quitBtn = new NeonButton("Quit");
+    private final JCheckBox ghostBox = new JCheckBox("Race your best (ghost)");
 
     // Theme
     private static final Color BG_TOP = new Color(16, 20, 36);
@@ -23,9 +31,33 @@ public class WelcomePanel extends JPanel {
     private static final Color TITLE_COLOR = new Color(120, 200, 255);
     private static final Color SUBTITLE_COLOR = new Color(200, 220, 240);
 
-    private final Timer animTimer;
-    private long lastNanos = System.nanoTime();
-    private double tMillis = 0; // animation clock
+    private static final String TITLE = "Neon Rush";
+    private static final String SUBTITLE = "Top‑View Car Racing";
+    private static final int TITLE_GLOW_MARGIN = 6;  // half the widest glow stroke, plus antialiasing
+    private static final Color STREAK_BRIGHT = new Color(0, 255, 200, 40);
+    private static final Color STREAK_DIM = new Color(0, 255, 200, 28);
+    private static final double STREAK_SPEED = 0.06; // px/ms for streak motion
+    private static final int STREAK_PERIOD = 80;     // two lines, one of each alpha
+
+    // At low quality the background is repainted at half the rate
+    private static final long LOW_QUALITY_FRAME_NANOS = 33_000_000;
+
+    // Animation clock, advanced by the frame scheduler and read when painting
+    private volatile double tMillis = 0;
+    private long lastFrameNanos;   // scheduler thread only
+    private long lastRepaintNanos; // scheduler thread only
+    private volatile boolean repaintPending = false;
+
+    // Cached layers at device resolution, dropped while the panel is hidden
+    private BufferedImage backdrop;
+    private BufferedImage streakTile;
+    private BufferedImage title;
+    private BufferedImage titleGlow;
+    private int titleX, titleY;
+    private int layerWidth, layerHeight;
+    private double layerScale;
+    private Quality layerQuality;
+    private int layerEffects;
 
     public WelcomePanel(Consumer<String> onStart) {
         setPreferredSize(new Dimension(GamePanel.WIDTH + 40, GamePanel.HEIGHT + 40));
@@ -78,7 +110,12 @@ public class WelcomePanel extends JPanel {
         formCard.add(nameLabel, fc);
         fc.gridx = 0; fc.gridy = 1; fc.gridwidth = 2; fc.fill = GridBagConstraints.HORIZONTAL;
         formCard.add(nameField, fc);
-        fc.gridy = 2; fc.gridwidth = 1; fc.fill = GridBagConstraints.NONE; fc.insets = new Insets(14, 8, 8, 8);
+        ghostBox.setOpaque(false);
+        ghostBox.setForeground(new Color(200, 220, 240));
+        ghostBox.setFont(ghostBox.getFont().deriveFont(Font.PLAIN, 13f));
+        fc.gridy = 2;
+        formCard.add(ghostBox, fc);
+        fc.gridy = 3; fc.gridwidth = 1; fc.fill = GridBagConstraints.NONE; fc.insets = new Insets(14, 8, 8, 8);
         formCard.add(startBtn, fc);
         fc.gridx = 1;
         formCard.add(quitBtn, fc);
@@ -93,14 +130,12 @@ public class WelcomePanel extends JPanel {
         c.gridy = 2;
         add(formCard, c);
 
-        // Animate
-        animTimer = new Timer(16, e -> {
-            long now = System.nanoTime();
-            tMillis += Math.min(100, (now - lastNanos) / 1_000_000.0);
-            lastNanos = now;
-            repaint();
+        // The card layout hides this panel for the whole game; the layers are rebuilt on return
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) == 0 || isShowing()) return;
+            flushLayers();
+            repaintPending = false;
         });
-        animTimer.start();
 
         SwingUtilities.invokeLater(() -> nameField.requestFocusInWindow());
     }
@@ -116,66 +151,180 @@ public class WelcomePanel extends JPanel {
         onStart.accept(playerName);
     }
 
+    // Whether the next game should bring the ghost of a recorded best run
+    public boolean isRaceGhost() {
+        return ghostBox.isSelected();
+    }
+
     public void setPlayerName(String name) {
         nameField.setText(name);
         SwingUtilities.invokeLater(() -> nameField.requestFocusInWindow());
     }
 
+    // Advances the animation; a repaint still waiting for the EDT is not asked for again
+    @Override
+    public void onFrame(long frameNanos) {
+        if (lastFrameNanos != 0) tMillis += Math.min(100, (frameNanos - lastFrameNanos) / 1_000_000.0);
+        lastFrameNanos = frameNanos;
+        if (Quality.current() == Quality.LOW && frameNanos - lastRepaintNanos < LOW_QUALITY_FRAME_NANOS) return;
+        if (repaintPending) return;
+        repaintPending = true;
+        lastRepaintNanos = frameNanos;
+        repaint();
+    }
+
     @Override
     protected void paintComponent(Graphics g) {
+        repaintPending = false;
         super.paintComponent(g);
-        // Primary animated background
+        int w = getWidth(), h = getHeight();
+        if (w <= 0 || h <= 0) return;
+
         Graphics2D g2 = (Graphics2D) g.create();
-        enableQuality(g2);
+        double scale = g2.getTransform().getScaleX();
+        Quality quality = Quality.current();
+        if (backdrop == null || w != layerWidth || h != layerHeight || scale != layerScale
+                || quality != layerQuality || quality.effects() != layerEffects) {
+            buildLayers(g2.getDeviceConfiguration(), w, h, scale, quality);
+        }
 
-        int w = getWidth(), h = getHeight();
+        // The layers are baked at device resolution
+        AffineTransform saved = SpriteCache.enterDeviceSpace(g2, scale);
+        g2.drawImage(backdrop, 0, 0, null);
+
+        // Animated diagonal streaks: one period of the pattern, scrolled down and repeated
+        int tileH = streakTile.getHeight();
+        int offset = (int) ((tMillis * STREAK_SPEED) % STREAK_PERIOD * tileH / STREAK_PERIOD);
+        for (int y = offset - tileH; y < backdrop.getHeight(); y += tileH) {
+            g2.drawImage(streakTile, 0, y, null);
+        }
+
+        // Neon title; its glow pulses by fading the cached glow in and out
+        if (titleGlow != null) {
+            float pulse = (float) (0.6 + 0.4 * Math.sin((tMillis / 1200.0) * Math.PI * 2));
+            g2.setComposite(AlphaComposite.SrcOver.derive(pulse));
+            g2.drawImage(titleGlow, titleX, titleY, null);
+            g2.setComposite(AlphaComposite.SrcOver);
+        }
+        g2.drawImage(title, titleX, titleY, null);
+
+        SpriteCache.leaveDeviceSpace(g2, saved);
+        g2.dispose();
+    }
 
+    // Everything but the streak motion and the title pulse, re-rendered only when the panel's
+    // size, the screen scale or the quality changes
+    private void buildLayers(GraphicsConfiguration gc, int w, int h, double scale, Quality quality) {
+        int dw = (int) Math.ceil(w * scale), dh = (int) Math.ceil(h * scale);
+        boolean glows = quality.has(Quality.GLOWS);
+
+        backdrop = gc != null
+                ? gc.createCompatibleImage(dw, dh, Transparency.OPAQUE)
+                : new BufferedImage(dw, dh, BufferedImage.TYPE_INT_RGB);
+        Graphics2D bg = layerGraphics(backdrop, 0, 0, scale, scale);
+        paintBackdrop(bg, w, h, glows);
+        bg.dispose();
+
+        // A whole number of device pixels per period so the repeats line up
+        int tileH = Math.max(1, (int) Math.round(STREAK_PERIOD * scale));
+        streakTile = SpriteCache.createSpriteImage(dw, tileH);
+        Graphics2D sg = layerGraphics(streakTile, 0, 0, scale, tileH / (double) STREAK_PERIOD);
+        paintStreakTile(sg, w);
+        sg.dispose();
+
+        buildTitle(w, h, scale, glows);
+
+        layerWidth = w;
+        layerHeight = h;
+        layerScale = scale;
+        layerQuality = quality;
+        layerEffects = quality.effects();
+    }
+
+    private void flushLayers() {
+        backdrop = null;
+        streakTile = null;
+        title = null;
+        titleGlow = null;
+    }
+
+    private static Graphics2D layerGraphics(BufferedImage img, int originX, int originY, double sx, double sy) {
+        Graphics2D g2 = img.createGraphics();
+        UiUtils.enableQuality(g2);
+        g2.translate(-originX, -originY);
+        g2.scale(sx, sy);
+        return g2;
+    }
+
+    private void paintBackdrop(Graphics2D g2, int w, int h, boolean glows) {
         // Vertical gradient base
         GradientPaint gp = new GradientPaint(0, 0, BG_TOP, 0, h, BG_BOTTOM);
         g2.setPaint(gp);
         g2.fillRect(0, 0, w, h);
 
         // Vignette with two radial glows (teal left, purple right)
-        paintRadialGlow(g2, new Point((int)(w*0.25), (int)(h*0.3)), Math.max(w,h)*0.7f,
-                new Color(0, 255, 200, 40), new Color(0, 255, 200, 0));
-        paintRadialGlow(g2, new Point((int)(w*0.85), (int)(h*0.15)), Math.max(w,h)*0.6f,
-                new Color(180, 120, 255, 50), new Color(180, 120, 255, 0));
-
-        // Animated diagonal streaks
-        paintStreaks(g2, w, h);
-
-        // Neon title (custom painted, centered near top)
-        paintNeonTitle(g2, w, h);
-
-        g2.dispose();
+        if (glows) {
+            paintRadialGlow(g2, new Point((int)(w*0.25), (int)(h*0.3)), Math.max(w,h)*0.7f,
+                    new Color(0, 255, 200, 40), new Color(0, 255, 200, 0));
+            paintRadialGlow(g2, new Point((int)(w*0.85), (int)(h*0.15)), Math.max(w,h)*0.6f,
+                    new Color(180, 120, 255, 50), new Color(180, 120, 255, 0));
+        }
     }
 
-    private void paintNeonTitle(Graphics2D g2, int w, int h) {
-        String title = "Neon Rush";
+    // The title image covers the title outline with room for its glow, and the subtitle
+    private void buildTitle(int w, int h, double scale, boolean glows) {
         Font font = getFont().deriveFont(Font.BOLD, 56f);
-        g2.setFont(font);
-
-        GlyphVector gv = font.createGlyphVector(g2.getFontRenderContext(), title);
-        Shape outline = gv.getOutline();
+        FontRenderContext frc = new FontRenderContext(AffineTransform.getScaleInstance(scale, scale), true, false);
+        Shape outline = font.createGlyphVector(frc, TITLE).getOutline();
         Rectangle bounds = outline.getBounds();
 
         int tx = (w - bounds.width) / 2 - bounds.x;
         int ty = (int) (h * 0.18) - bounds.y;
 
-        // Position outline
-        g2.translate(tx, ty);
+        // Subtitle under title (painted for better centering)
+        Font sf = getFont().deriveFont(Font.PLAIN, 18f);
+        FontMetrics fm = getFontMetrics(sf);
+        int sw = fm.stringWidth(SUBTITLE);
+        int sx = (bounds.width - sw) / 2;
+        int sy = bounds.height + 28;
 
-        // Pulse for glow
-        double pulse = 0.6 + 0.4 * Math.sin((tMillis / 1200.0) * Math.PI * 2);
+        Rectangle area = new Rectangle(bounds);
+        area.grow(TITLE_GLOW_MARGIN, TITLE_GLOW_MARGIN);
+        area.add(new Rectangle(sx, sy - fm.getAscent(), sw + 2, fm.getAscent() + fm.getDescent() + 2));
+        area.translate(tx, ty);
+
+        titleX = (int) Math.floor(area.x * scale);
+        titleY = (int) Math.floor(area.y * scale);
+        int dw = (int) Math.ceil(area.getMaxX() * scale) - titleX;
+        int dh = (int) Math.ceil(area.getMaxY() * scale) - titleY;
+
+        title = SpriteCache.createSpriteImage(dw, dh);
+        Graphics2D tg = layerGraphics(title, titleX, titleY, scale, scale);
+        tg.translate(tx, ty);
+        paintTitle(tg, outline, bounds, sf, sx, sy);
+        tg.dispose();
+
+        titleGlow = null;
+        if (glows) {
+            titleGlow = SpriteCache.createSpriteImage(dw, dh);
+            Graphics2D gg = layerGraphics(titleGlow, titleX, titleY, scale, scale);
+            gg.translate(tx, ty);
+            paintTitleGlow(gg, outline);
+            gg.dispose();
+        }
+    }
 
-        // Outer glow strokes (fake blur with multiple strokes)
+    // Outer glow strokes (fake blur with multiple strokes) at the top of the pulse
+    private static void paintTitleGlow(Graphics2D g2, Shape outline) {
         for (int i = 10; i >= 3; i -= 2) {
-            float alpha = (float) (0.020 * pulse * (i / 10.0));
+            float alpha = (float) (0.020 * (i / 10.0));
             g2.setColor(new Color(ACCENT.getRed(), ACCENT.getGreen(), ACCENT.getBlue(), (int) (alpha * 255)));
             g2.setStroke(new BasicStroke(i, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
             g2.draw(outline);
         }
+    }
 
+    private static void paintTitle(Graphics2D g2, Shape outline, Rectangle bounds, Font subFont, int sx, int sy) {
         // Fill gradient
         Paint p = new GradientPaint(0, 0, TITLE_COLOR, 0, bounds.height, new Color(255, 160, 210));
         g2.setPaint(p);
@@ -186,36 +335,21 @@ public class WelcomePanel extends JPanel {
         g2.setStroke(new BasicStroke(1.8f));
         g2.draw(outline);
 
-        // Subtitle under title (painted for better centering)
-        String sub = "Top‑View Car Racing";
-        Font sf = getFont().deriveFont(Font.PLAIN, 18f);
-        g2.setFont(sf);
-        FontMetrics fm = g2.getFontMetrics();
-        int sw = fm.stringWidth(sub);
-        int sx = (bounds.width - sw) / 2;
-        int sy = bounds.height + 28;
+        g2.setFont(subFont);
         g2.setColor(new Color(255, 255, 255, 30));
-        g2.drawString(sub, sx + 1, sy + 1);
+        g2.drawString(SUBTITLE, sx + 1, sy + 1);
         g2.setColor(SUBTITLE_COLOR);
-        g2.drawString(sub, sx, sy);
-
-        // Reset translate
-        g2.translate(-tx, -ty);
+        g2.drawString(SUBTITLE, sx, sy);
     }
 
-    private void paintStreaks(Graphics2D g2, int w, int h) {
+    // One period of the streaks: a line every 40 px, alternating between two alphas. Each line
+    // rises 80 px across the panel, so lines starting below the tile still cross it.
+    private static void paintStreakTile(Graphics2D g2, int w) {
         g2.setStroke(new BasicStroke(2f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-        double speed = 0.06; // px/ms for streak motion
-        double offset = (tMillis * speed) % 40;
-
-        for (int y = -h; y < h * 2; y += 40) {
-            int yy = (int) (y + offset);
-            int x1 = -100, x2 = w + 100;
-            // Alternate colors and alphas
-            int a = 20 + (int) (20 * ((yy / 40) % 2 == 0 ? 1 : 0.4));
-            g2.setColor(new Color(0, 255, 200, a));
-            // Draw diagonal line
-            g2.drawLine(x1, yy, x2, yy - 80);
+        for (int k = 0; k <= 4; k++) {
+            int y = k * 40;
+            g2.setColor(k % 2 == 0 ? STREAK_BRIGHT : STREAK_DIM);
+            g2.drawLine(-100, y, w + 100, y - 80);
         }
     }
 
@@ -232,18 +366,11 @@ public class WelcomePanel extends JPanel {
         g2.setPaint(old);
     }
 
-    private static void enableQuality(Graphics2D g2) {
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
-    }
-
     // Rounded glass card panel
     private static class GlassCard extends JPanel {
         @Override protected void paintComponent(Graphics g) {
             Graphics2D g2 = (Graphics2D) g.create();
-            enableQuality(g2);
+            UiUtils.enableQuality(g2);
             int w = getWidth(), h = getHeight();
 
             // Glow shadow
@@ -290,7 +417,7 @@ public class WelcomePanel extends JPanel {
 
         @Override protected void paintComponent(Graphics g) {
             Graphics2D g2 = (Graphics2D) g.create();
-            enableQuality(g2);
+            UiUtils.enableQuality(g2);
 
             int w = getWidth(), h = getHeight();
             float arc = 14f;
@@ -354,7 +481,7 @@ public class WelcomePanel extends JPanel {
 
         @Override protected void paintComponent(Graphics g) {
             Graphics2D g2 = (Graphics2D) g.create();
-            enableQuality(g2);
+            UiUtils.enableQuality(g2);
 
             int w = getWidth(), h = getHeight();
             RoundRectangle2D rr = new RoundRectangle2D.Double(0, 0, w - 1, h - 1, 14, 14);
@@ -374,7 +501,7 @@ public class WelcomePanel extends JPanel {
             // Prompt
             if (getText().isEmpty() && !isFocusOwner()) {
                 Graphics2D g3 = (Graphics2D) g.create();
-                enableQuality(g3);
+                UiUtils.enableQuality(g3);
                 g3.setFont(getFont());
                 g3.setColor(new Color(200, 220, 230, 120));
                 Insets ins = getInsets();
@@ -0,0 +1,29 @@
+package com.sandesh.racer.util;
+
+import java.lang.management.ManagementFactory;
+
+// Bytes allocated by the calling thread, where the JVM reports it (HotSpot does)
+public final class AllocationCounter {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private AllocationCounter() { }
+
+    private static com.sun.management.ThreadMXBean threads() {
+        try {
+            if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean t
+                    && t.isThreadAllocatedMemorySupported()) {
+                t.setThreadAllocatedMemoryEnabled(true);
+                return t;
+            }
+        } catch (LinkageError | UnsupportedOperationException ignored) { }
+        return null;
+    }
+
+    public static boolean isSupported() { return THREADS != null; }
+
+    // Running total for the current thread, or -1 if unsupported
+    public static long currentThreadBytes() {
+        return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
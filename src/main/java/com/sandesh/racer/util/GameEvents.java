@@ -0,0 +1,135 @@
+package com.sandesh.racer.util;
+
+import jdk.jfr.*;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+// JDK Flight Recorder events for offline stall analysis (open the .jfr in JDK Mission Control).
+// Creating an event costs little while no recording has it enabled, so call sites only fill in the
+// fields after shouldCommit(). Start with -Dneonrush.jfr=<file> for a continuous recording.
+public final class GameEvents {
+
+    private GameEvents() {}
+
+    @Name("neonrush.Tick")
+    @Label("Simulation Tick")
+    @Category({"Neon Rush", "Game Loop"})
+    @StackTrace(false)
+    public static class Tick extends Event {
+        @Label("Tick") public long tick;
+        @Label("Delta (ms)") public double dtMillis;
+        @Label("Opponents") public int opponents;
+        @Label("Level") public int level;
+        @Label("Input") @Timespan public long input;
+        @Label("Simulation") @Timespan public long simulation;
+        @Label("Collision") @Timespan public long collision;
+    }
+
+    @Name("neonrush.FrameSpike")
+    @Label("Frame Spike")
+    @Description("A frame that took longer than the frame budget (the event threshold)")
+    @Category({"Neon Rush", "Rendering"})
+    @Threshold("20 ms")
+    @StackTrace(false)
+    public static class FrameSpike extends Event {
+        @Label("Tick") public long tick;
+        @Label("Opponents") public int opponents;
+        @Label("Snapshot") @Timespan public long snapshot;
+        @Label("Background") @Timespan public long background;
+        @Label("Lanes") @Timespan public long lanes;
+        @Label("HUD") @Timespan public long hud;
+        @Label("Cars") @Timespan public long cars;
+        @Label("Present") @Timespan public long present;
+    }
+
+    @Name("neonrush.Spawn")
+    @Label("Opponent Spawn")
+    @Category({"Neon Rush", "Traffic"})
+    @StackTrace(false)
+    public static class Spawn extends Event {
+        @Label("Lane") public int lane;
+        @Label("Speed") public double speed;
+        @Label("Opponents") public int opponents;
+    }
+
+    @Name("neonrush.Despawn")
+    @Label("Opponent Despawn")
+    @Category({"Neon Rush", "Traffic"})
+    @StackTrace(false)
+    public static class Despawn extends Event {
+        @Label("Lane") public int lane;
+        @Label("Opponents") public int opponents;
+    }
+
+    @Name("neonrush.LevelUp")
+    @Label("Level Up")
+    @Category({"Neon Rush", "Traffic"})
+    @StackTrace(false)
+    public static class LevelUp extends Event {
+        @Label("Level") public int level;
+        @Label("Speed") public double speed;
+        @Label("Spawn Interval (ms)") public double spawnIntervalMillis;
+    }
+
+    @Name("neonrush.HighScoreIO")
+    @Label("High Score I/O")
+    @Category({"Neon Rush", "High Scores"})
+    public static class HighScoreIo extends Event {
+        @Label("Operation") public String operation;
+        @Label("File") public String file;
+        @Label("Bytes") @DataAmount public long bytes;
+        @Label("Records") public int records;
+    }
+
+    // Whether a recording has any of the traffic events on. Escape analysis does not always
+    // remove an unused event from a method as big as the traffic update, so per-car call sites
+    // check this before creating one.
+    private static volatile boolean trafficRecorded;
+
+    static {
+        onRecordingChange(() -> trafficRecorded =
+                new Spawn().isEnabled() || new Despawn().isEnabled() || new LevelUp().isEnabled());
+    }
+
+    public static boolean isTrafficRecorded() { return trafficRecorded; }
+
+    // Calls back now and whenever a recording starts or stops, e.g. to turn on extra timing
+    // while the tick or spike events are being recorded. Does not start the recorder itself.
+    public static void onRecordingChange(Runnable callback) {
+        FlightRecorder.addListener(new FlightRecorderListener() {
+            @Override public void recordingStateChanged(Recording recording) { callback.run(); }
+        });
+        callback.run();
+    }
+
+    // Starts a disk-backed rolling recording named "neon-rush" if -Dneonrush.jfr=<file> is set.
+    // It keeps the last neonrush.jfr.maxAgeMinutes (10) / neonrush.jfr.maxSizeMb (64), flags
+    // frames over neonrush.jfr.frameBudgetMs (20) and is written to <file> on exit; pull it
+    // earlier with: jcmd <pid> JFR.dump name=neon-rush filename=incident.jfr
+    public static void startRecordingIfRequested() {
+        String dest = System.getProperty("neonrush.jfr");
+        if (dest == null || dest.isBlank() || !FlightRecorder.isAvailable()) return;
+        try {
+            Recording r = new Recording(Configuration.getConfiguration("default"));
+            r.setName("neon-rush");
+            r.setToDisk(true);
+            r.setMaxAge(Duration.ofMinutes(Long.getLong("neonrush.jfr.maxAgeMinutes", 10)));
+            r.setMaxSize(Long.getLong("neonrush.jfr.maxSizeMb", 64) << 20);
+            Path file = Path.of(dest).toAbsolutePath();
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            r.setDestination(file);
+            r.setDumpOnExit(true);
+            r.enable(Tick.class);
+            r.enable(Spawn.class);
+            r.enable(Despawn.class);
+            r.enable(LevelUp.class);
+            r.enable(HighScoreIo.class).withThreshold(Duration.ZERO);
+            r.enable(FrameSpike.class).withThreshold(Duration.ofMillis(Long.getLong("neonrush.jfr.frameBudgetMs", 20)));
+            r.start();
+        } catch (Exception e) {
+            System.err.println("Could not start flight recording: " + e);
+        }
+    }
+}
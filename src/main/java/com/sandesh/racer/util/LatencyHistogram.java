@@ -0,0 +1,78 @@
+package com.sandesh.racer.util;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lock-free log-linear histogram of nanosecond durations (HdrHistogram-style buckets): exact
+// below 64 ns, then 64 buckets per power of two, so any value is off by at most ~1.6%.
+// Writers only increment; readers copy the counts and work on the copy.
+public final class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int MAX_MAGNITUDE = 42; // ~73 minutes, longer values are clamped
+    public static final int BUCKETS = (MAX_MAGNITUDE - SUB_BITS + 2) << SUB_BITS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long nanos) {
+        if (nanos < 0) nanos = 0;
+        counts.incrementAndGet(bucketOf(nanos));
+        long m = max.get();
+        while (nanos > m && !max.compareAndSet(m, nanos)) m = max.get();
+    }
+
+    // Largest value ever recorded
+    public long getMax() { return max.get(); }
+
+    // Copies the counts into `into` (length BUCKETS) and returns their total
+    public long copyCounts(long[] into) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            into[i] = counts.get(i);
+            total += into[i];
+        }
+        return total;
+    }
+
+    public static int bucketOf(long value) {
+        long v = Math.min(value, (1L << (MAX_MAGNITUDE + 1)) - 1);
+        int msb = 63 - Long.numberOfLeadingZeros(v | 1);
+        if (msb < SUB_BITS) return (int) v;
+        int shift = msb - SUB_BITS;
+        return ((shift + 1) << SUB_BITS) + (int) ((v >>> shift) - SUB_BUCKETS);
+    }
+
+    // Smallest value that lands in the bucket
+    public static long bucketFrom(int bucket) {
+        if (bucket < SUB_BUCKETS) return bucket;
+        int shift = (bucket >> SUB_BITS) - 1;
+        return ((long) (bucket & (SUB_BUCKETS - 1)) + SUB_BUCKETS) << shift;
+    }
+
+    // Largest value that lands in the bucket
+    public static long bucketTo(int bucket) {
+        return bucket + 1 < BUCKETS ? bucketFrom(bucket + 1) - 1 : Long.MAX_VALUE;
+    }
+
+    // Upper edge of the bucket holding the q-quantile of a count array, 0 if it is empty
+    public static long percentile(long[] counts, long total, double q) {
+        if (total <= 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(total * q));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= target) return bucketTo(i);
+        }
+        return bucketTo(counts.length - 1);
+    }
+
+    // Upper edge of the highest non-empty bucket, 0 if it is empty
+    public static long highest(long[] counts) {
+        for (int i = counts.length - 1; i >= 0; i--) {
+            if (counts[i] != 0) return bucketTo(i);
+        }
+        return 0;
+    }
+}
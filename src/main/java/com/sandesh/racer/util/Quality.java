@@ -0,0 +1,78 @@
+package com.sandesh.racer.util;
+
+import java.awt.*;
+import java.util.Locale;
+
+// Rendering presets. HIGH is the full look; MEDIUM keeps every effect but leaves rendering and
+// stroke control to the pipeline's defaults; LOW also turns off shape antialiasing and skips the
+// soft glows and shadows. Text stays antialiased in all of them (HudLayer lays text out for it).
+// On top of the preset, effects can be shed at runtime while frames run over budget.
+public enum Quality {
+    LOW(Quality.FULL_RES, RenderingHints.VALUE_RENDER_SPEED, RenderingHints.VALUE_STROKE_NORMALIZE),
+    MEDIUM(Quality.ALL, RenderingHints.VALUE_RENDER_DEFAULT, RenderingHints.VALUE_STROKE_NORMALIZE),
+    HIGH(Quality.ALL, RenderingHints.VALUE_RENDER_QUALITY, RenderingHints.VALUE_STROKE_PURE);
+
+    // Effects, as bits of effects()
+    public static final int GLOWS = 1;     // car tail glow and underglow, welcome screen glows
+    public static final int CONES = 2;     // headlight cones
+    public static final int SHADOWS = 4;   // drop shadows under the cars
+    public static final int ANTIALIAS = 8; // shape antialiasing
+    public static final int FULL_RES = 16; // game frames rendered at the window's resolution
+    public static final int ALL = GLOWS | CONES | SHADOWS | ANTIALIAS | FULL_RES;
+
+    // -Dneonrush.quality=low|medium|high overrides the preset chosen by the startup probe
+    public static final Quality OVERRIDE = parse(System.getProperty("neonrush.quality"), null);
+
+    private static volatile Quality current = OVERRIDE != null ? OVERRIDE : HIGH;
+    private static volatile int shed = 0;
+
+    private final int effects;
+    private final Object rendering;
+    private final Object strokeControl;
+
+    Quality(int effects, Object rendering, Object strokeControl) {
+        this.effects = effects;
+        this.rendering = rendering;
+        this.strokeControl = strokeControl;
+    }
+
+    public static Quality current() { return current; }
+
+    public static void set(Quality quality) { current = quality; }
+
+    // Effects turned off whatever the preset, e.g. by the adaptive quality scaler
+    public static int shed() { return shed; }
+
+    public static void setShed(int effects) { shed = effects; }
+
+    // Case-insensitive preset name, or the fallback when missing or unknown
+    public static Quality parse(String name, Quality fallback) {
+        if (name == null) return fallback;
+        try {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return fallback;
+        }
+    }
+
+    public void apply(Graphics2D g2) {
+        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, has(ANTIALIAS)
+                ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+        g2.setRenderingHint(RenderingHints.KEY_RENDERING, rendering);
+        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, strokeControl);
+    }
+
+    // The preset's effects less the shed ones
+    public int effects() { return effects & ~shed; }
+
+    public boolean has(int effect) { return (effects() & effect) != 0; }
+
+    // The preset's effects regardless of what is shed
+    public int presetEffects() { return effects; }
+
+    public Quality next() {
+        Quality[] all = values();
+        return all[(ordinal() + 1) % all.length];
+    }
+}
@@ -0,0 +1,123 @@
+package com.sandesh.racer.util;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class SpriteCache {
+
+    // Sprites baked for large screens are big, so the shared cache is also bounded in bytes
+    // (-Dneonrush.spriteCacheMb, default 64)
+    private static final SpriteCache SHARED = new SpriteCache(256, Long.getLong("neonrush.spriteCacheMb", 64) << 20);
+
+    // Runtime switch between pre-rendered sprites and the vector draw path
+    private static volatile boolean enabled = !"false".equals(System.getProperty("neonrush.sprites"));
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final LinkedHashMap<Long, BufferedImage> sprites;
+    private long bytes = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+
+    public SpriteCache(int maxEntries) {
+        this(maxEntries, Long.MAX_VALUE);
+    }
+
+    public SpriteCache(int maxEntries, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        // Access-ordered map: iteration order is least-recently-used first
+        this.sprites = new LinkedHashMap<>(maxEntries * 2, 0.75f, true);
+    }
+
+    public static SpriteCache shared() { return SHARED; }
+
+    public static boolean isEnabled() { return enabled; }
+
+    public static void setEnabled(boolean on) { enabled = on; }
+
+    // Packs a sprite variant into a single cache key: kind | variant | width | height
+    public static long key(int kind, int variant, int width, int height) {
+        return ((long) (kind & 0xFF) << 56)
+                | ((long) (variant & 0xFFFFFF) << 32)
+                | ((long) (width & 0xFFFF) << 16)
+                | (height & 0xFFFF);
+    }
+
+    // Variant (12 bits at most) combined with the device scale a sprite is baked for, in 1/256ths
+    public static int scaledVariant(int variant, double scale) {
+        return (int) Math.round(scale * 256) << 12 | variant;
+    }
+
+    // Images baked at device resolution are drawn in device pixels: under a scaled transform this
+    // switches g2 to a plain translation to the transform's (pixel-aligned) origin and returns the
+    // transform to put back; at scale 1 it does nothing and returns null
+    public static AffineTransform enterDeviceSpace(Graphics2D g2, double scale) {
+        if (scale == 1) return null;
+        AffineTransform at = g2.getTransform();
+        g2.setTransform(AffineTransform.getTranslateInstance(Math.rint(at.getTranslateX()), Math.rint(at.getTranslateY())));
+        return at;
+    }
+
+    public static void leaveDeviceSpace(Graphics2D g2, AffineTransform saved) {
+        if (saved != null) g2.setTransform(saved);
+    }
+
+    public synchronized BufferedImage get(long key) {
+        BufferedImage img = sprites.get(key);
+        if (img != null) hits++;
+        return img;
+    }
+
+    public synchronized BufferedImage put(long key, BufferedImage img) {
+        misses++;
+        BufferedImage old = sprites.put(key, img);
+        if (old != null) bytes -= bytesOf(old);
+        bytes += bytesOf(img);
+        // Evict least recently used sprites, never the one just added
+        Iterator<BufferedImage> lru = sprites.values().iterator();
+        while ((sprites.size() > maxEntries || bytes > maxBytes) && sprites.size() > 1) {
+            BufferedImage eldest = lru.next();
+            lru.remove();
+            bytes -= bytesOf(eldest);
+            eldest.flush();
+            evictions++;
+        }
+        return img;
+    }
+
+    private static long bytesOf(BufferedImage img) {
+        return (long) img.getWidth() * img.getHeight() * 4;
+    }
+
+    public synchronized void clear() {
+        for (BufferedImage img : sprites.values()) img.flush();
+        sprites.clear();
+        bytes = 0;
+    }
+
+    public synchronized int size() { return sprites.size(); }
+    public synchronized long getBytes() { return bytes; }
+    public synchronized long getHits() { return hits; }
+    public synchronized long getMisses() { return misses; }
+    public synchronized long getEvictions() { return evictions; }
+
+    // Translucent image in the screen's native format so Java2D can keep it in video memory
+    public static BufferedImage createSpriteImage(int w, int h) {
+        GraphicsConfiguration gc = defaultConfiguration();
+        if (gc != null) {
+            return gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT);
+        }
+        return new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    private static GraphicsConfiguration defaultConfiguration() {
+        if (GraphicsEnvironment.isHeadless()) return null;
+        return GraphicsEnvironment.getLocalGraphicsEnvironment()
+                .getDefaultScreenDevice().getDefaultConfiguration();
+    }
+}
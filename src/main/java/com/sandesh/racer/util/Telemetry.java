@@ -0,0 +1,129 @@
+package com.sandesh.racer.util;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.Locale;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Per-phase timing histograms for the game loop. Instrumented code brackets a phase with
+// start()/end(); while disabled start() returns 0 and end() returns at once, so the cost is
+// one volatile read per phase.
+public final class Telemetry {
+
+    public enum Phase {
+        INPUT, SIMULATION, COLLISION, TICK,                     // simulation thread, per tick
+        SNAPSHOT, BACKGROUND, LANES, HUD, CARS, PRESENT, FRAME  // render path, per frame
+    }
+
+    // Shared do-nothing instance for code running without instrumentation; cannot be enabled
+    public static final Telemetry DISABLED = new Telemetry();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[Phase.values().length];
+    private final long[] last = new long[Phase.values().length]; // meant for the recording thread
+    private final long startedNanos = System.nanoTime();
+    private volatile boolean enabled;
+    private ScheduledExecutorService dumper;
+
+    public Telemetry() {
+        for (int i = 0; i < histograms.length; i++) histograms[i] = new LatencyHistogram();
+    }
+
+    public boolean isEnabled() { return enabled; }
+
+    public void setEnabled(boolean on) {
+        if (this != DISABLED) enabled = on;
+    }
+
+    public long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    public void end(Phase phase, long start) {
+        if (start != 0) put(phase, System.nanoTime() - start);
+    }
+
+    // For durations the caller measured anyway
+    public void record(Phase phase, long nanos) {
+        if (enabled) put(phase, nanos);
+    }
+
+    private void put(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+        last[phase.ordinal()] = nanos;
+    }
+
+    // Most recent duration of a phase, 0 if never recorded
+    public long lastNanos(Phase phase) {
+        return last[phase.ordinal()];
+    }
+
+    public LatencyHistogram histogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    // Rewrites `file` with the histograms every `periodSeconds` on a daemon thread, and once more at exit
+    public synchronized void startDumping(Path file, long periodSeconds) {
+        if (dumper != null) return;
+        setEnabled(true);
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "telemetry-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        dumper.scheduleAtFixedRate(() -> dumpQuietly(file), periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> dumpQuietly(file), "telemetry-final-dump"));
+    }
+
+    public synchronized boolean isDumping() { return dumper != null; }
+
+    public synchronized void stop() {
+        if (dumper != null) dumper.shutdown();
+        dumper = null;
+    }
+
+    private void dumpQuietly(Path file) {
+        try {
+            dump(file);
+        } catch (IOException e) {
+            System.err.println("Telemetry dump failed: " + e);
+        }
+    }
+
+    // Summary per phase as # comment lines, then non-empty buckets as phase,fromNanos,toNanos,count
+    public void dump(Path file) throws IOException {
+        Path dir = file.toAbsolutePath().getParent();
+        if (dir != null) Files.createDirectories(dir);
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        long[] counts = new long[LatencyHistogram.BUCKETS];
+        try (BufferedWriter w = Files.newBufferedWriter(tmp)) {
+            w.write(String.format(Locale.ROOT, "# neon rush telemetry %s, uptime %.1f s%n",
+                    Instant.now(), (System.nanoTime() - startedNanos) / 1e9));
+            w.write("# phase,count,p50Nanos,p90Nanos,p99Nanos,maxNanos\n");
+            for (Phase p : Phase.values()) {
+                LatencyHistogram h = histogram(p);
+                long total = h.copyCounts(counts);
+                w.write(String.format(Locale.ROOT, "# %s,%d,%d,%d,%d,%d%n", p, total,
+                        LatencyHistogram.percentile(counts, total, 0.50),
+                        LatencyHistogram.percentile(counts, total, 0.90),
+                        LatencyHistogram.percentile(counts, total, 0.99),
+                        h.getMax()));
+            }
+            w.write("phase,fromNanos,toNanos,count\n");
+            for (Phase p : Phase.values()) {
+                histogram(p).copyCounts(counts);
+                for (int i = 0; i < counts.length; i++) {
+                    if (counts[i] == 0) continue;
+                    w.write(p + "," + LatencyHistogram.bucketFrom(i) + "," + LatencyHistogram.bucketTo(i) + "," + counts[i]);
+                    w.newLine();
+                }
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -5,16 +5,17 @@ import java.awt.geom.RoundRectangle2D;
 
 public class UiUtils {
 
+    private static final Color PANEL_SHADOW = new Color(0, 0, 0, 140);
+    private static final BasicStroke PANEL_STROKE = new BasicStroke(2f);
+
+    // Rendering hints of the current quality preset
     public static void enableQuality(Graphics2D g2) {
-        g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
-        g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-        g2.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        Quality.current().apply(g2);
     }
 
     public static void drawPanel(Graphics2D g2, int x, int y, int w, int h, Color bg, Color glow) {
         // Shadow
-        g2.setColor(new Color(0, 0, 0, 140));
+        g2.setColor(PANEL_SHADOW);
         g2.fillRoundRect(x + 3, y + 4, w, h, 18, 18);
 
         // Panel
@@ -24,7 +25,7 @@ public class UiUtils {
 
         // Glow border
         g2.setColor(glow);
-        g2.setStroke(new BasicStroke(2f));
+        g2.setStroke(PANEL_STROKE);
         g2.draw(rr);
     }
 }
\ No newline at end of file
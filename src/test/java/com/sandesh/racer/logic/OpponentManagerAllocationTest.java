@@ -0,0 +1,45 @@
+package com.sandesh.racer.logic;
+
+import com.sandesh.racer.util.AllocationCounter;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Once the arrays have grown to the traffic and the JIT has compiled the tick, updating the
+// opponents and testing the player against them allocates nothing
+class OpponentManagerAllocationTest {
+
+    private static final double TICK_MS = 1000.0 / 60;
+    private static final int WARMUP_TICKS = 200_000;
+    private static final int MEASURED_TICKS = 20_000;
+    private static final long SLACK_BYTES = 4096; // the odd deoptimization, not per-tick garbage
+
+    @Test
+    void steadyStateTicksDoNotAllocate() {
+        assumeTrue(AllocationCounter.isSupported(), "per-thread allocation counting not supported");
+        // A level every 100 ms with speeds held, so spawns reach their fastest rate within two
+        // seconds and the measured ticks see level-ups on the densest traffic of the run
+        DifficultyCurve curve = new DifficultyCurve(100, 0, 900, 40, 420);
+        OpponentManager manager = new OpponentManager(GameSimulation.LANES, GameSimulation.ROAD_X,
+                GameSimulation.ROAD_WIDTH, GameSimulation.HEIGHT, new GameRandom(7), curve);
+
+        int hits = 0;
+        for (int t = 0; t < WARMUP_TICKS; t++) hits += tick(manager, t);
+
+        long before = AllocationCounter.currentThreadBytes();
+        for (int t = 0; t < MEASURED_TICKS; t++) hits += tick(manager, t);
+        long allocated = AllocationCounter.currentThreadBytes() - before;
+
+        assertTrue(hits > 0, "the player rectangle never met a car, the test drives no collisions");
+        assertTrue(allocated <= SLACK_BYTES,
+                allocated + " bytes allocated over " + MEASURED_TICKS + " steady-state ticks");
+    }
+
+    private static int tick(OpponentManager manager, int t) {
+        manager.update(TICK_MS);
+        int x = GameSimulation.PLAYER_MIN_X + t % (GameSimulation.PLAYER_MAX_X - GameSimulation.PLAYER_MIN_X);
+        return manager.collidesWith(x, GameSimulation.PLAYER_Y, GameSimulation.PLAYER_WIDTH,
+                GameSimulation.PLAYER_HEIGHT) ? 1 : 0;
+    }
+}
@@ -0,0 +1,80 @@
+package com.sandesh.racer.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The per-lane index behind collidesWith and pass counting answers the same as looking at every car
+class OpponentManagerLaneIndexTest {
+
+    private static final double TICK_MS = 1000.0 / 60;
+    private static final int[] LANE_COUNTS = {1, 2, 3, 5, 8};
+    private static final int ROAD_X = 60;
+    private static final int ROAD_WIDTH = 360; // at 5 and 8 lanes cars are wider than their lane
+    private static final int HEIGHT = 720;
+    private static final int TICKS = 3000;
+    private static final int QUERIES_PER_TICK = 20;
+
+    @Test
+    void collisionsMatchLinearScan() {
+        for (int lanes : LANE_COUNTS) {
+            OpponentManager manager = manager(lanes);
+            SplittableRandom random = new SplittableRandom(lanes);
+            for (int t = 0; t < TICKS; t++) {
+                manager.update(TICK_MS);
+                if (t % 50 == 0) manager.spawnTraffic(random.nextInt(1, 30)); // bursts of crowded lanes
+                for (int q = 0; q < QUERIES_PER_TICK; q++) {
+                    int rx = random.nextInt(ROAD_X - 80, ROAD_X + ROAD_WIDTH + 20);
+                    int ry = random.nextInt(-300, HEIGHT + 100);
+                    int rw = random.nextInt(0, 120);
+                    int rh = random.nextInt(0, 120);
+                    int tick = t;
+                    assertEquals(scanCollides(manager, rx, ry, rw, rh), manager.collidesWith(rx, ry, rw, rh),
+                            () -> lanes + " lanes, tick " + tick + ", rect " + rx + "," + ry + " " + rw + "x" + rh);
+                }
+            }
+        }
+    }
+
+    @Test
+    void passesMatchLinearScan() {
+        double passLine = HEIGHT - 100;
+        for (int lanes : LANE_COUNTS) {
+            OpponentManager manager = manager(lanes);
+            SplittableRandom random = new SplittableRandom(lanes);
+            for (int t = 0; t < TICKS; t++) {
+                if (t % 50 == 0) manager.spawnTraffic(random.nextInt(1, 30));
+                manager.consumePassedCount(0); // spawnTraffic does not count passes, start clean
+                manager.update(TICK_MS);
+                // Cars move down by less than the pass line's distance to the despawn line per
+                // tick, so every car that crossed it this tick is still there
+                int crossed = 0;
+                for (int i = 0, n = manager.getOpponentCount(); i < n; i++) {
+                    if (manager.getOpponentPrevY(i) <= passLine && manager.getOpponentY(i) > passLine) crossed++;
+                }
+                int tick = t;
+                assertEquals(crossed, manager.consumePassedCount(0), () -> lanes + " lanes, tick " + tick);
+            }
+        }
+    }
+
+    private static OpponentManager manager(int lanes) {
+        return new OpponentManager(lanes, ROAD_X, ROAD_WIDTH, HEIGHT, new GameRandom(lanes * 31L), DifficultyCurve.DEFAULT);
+    }
+
+    // Rectangle.intersects on every car's rounded bounds
+    private static boolean scanCollides(OpponentManager manager, int rx, int ry, int rw, int rh) {
+        if (rw <= 0 || rh <= 0) return false;
+        for (int i = 0, n = manager.getOpponentCount(); i < n; i++) {
+            int ix = (int) Math.round(manager.getOpponentX(i));
+            int iy = (int) Math.round(manager.getOpponentY(i));
+            if (rx < ix + manager.getOpponentWidth(i) && ix < rx + rw
+                    && ry < iy + manager.getOpponentHeight(i) && iy < ry + rh) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
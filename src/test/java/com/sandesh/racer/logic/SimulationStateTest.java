@@ -0,0 +1,138 @@
+package com.sandesh.racer.logic;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A game saved mid-run and restored elsewhere plays on exactly as the live one does
+class SimulationStateTest {
+
+    private static final long[] SEEDS = {1, 2, 3, 42, 1234, 98765};
+    private static final long MAX_TICKS = 20_000;
+
+    @Test
+    void restoredGamePlaysOnLikeTheLiveOne() {
+        for (long seed : SEEDS) {
+            for (long at : saveTicks(seed)) {
+                GameSimulation live = playTo(seed, at);
+                SimulationState state = new SimulationState();
+                live.saveTo(state);
+
+                GameSimulation restored = new GameSimulation(0); // other seed, nothing shared
+                restored.restoreFrom(state);
+                assertSamePlay(live, restored, seed, at);
+            }
+        }
+    }
+
+    @Test
+    void streamedGamePlaysOnLikeTheLiveOne() throws IOException {
+        for (long seed : SEEDS) {
+            for (long at : saveTicks(seed)) {
+                GameSimulation live = playTo(seed, at);
+                SimulationState saved = new SimulationState();
+                live.saveTo(saved);
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                saved.writeTo(new DataOutputStream(bytes));
+
+                SimulationState read = new SimulationState();
+                read.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+                GameSimulation restored = new GameSimulation(0);
+                restored.restoreFrom(read);
+                assertSamePlay(live, restored, seed, at);
+            }
+        }
+    }
+
+    @Test
+    void copiedGamePlaysOnLikeTheLiveOne() {
+        GameSimulation copy = new GameSimulation(0); // reused, so its buffers start out holding other games
+        for (long seed : SEEDS) {
+            for (long at : saveTicks(seed)) {
+                GameSimulation live = playTo(seed, at);
+                copy.copyFrom(live);
+                assertSamePlay(live, copy, seed, at);
+            }
+        }
+    }
+
+    @Test
+    void restoreReusesOneStateAcrossGames() {
+        SimulationState state = new SimulationState();
+        GameSimulation restored = new GameSimulation(0);
+        for (long seed : SEEDS) {
+            long at = saveTicks(seed)[2];
+            GameSimulation live = playTo(seed, at);
+            live.saveTo(state);
+            restored.restoreFrom(state);
+            assertSamePlay(live, restored, seed, at);
+        }
+    }
+
+    @Test
+    void readRejectsOtherData() {
+        byte[] junk = {1, 2, 3, 4, 5, 6, 7, 8};
+        assertThrows(IOException.class,
+                () -> new SimulationState().readFrom(new DataInputStream(new ByteArrayInputStream(junk))));
+    }
+
+    @Test
+    void readRejectsImpossibleSizesBeforeAllocating() throws IOException {
+        int[][] sizes = {{0, 10}, {-1, 10}, {SimulationState.MAX_LANES + 1, 10}, {3, -1},
+                {3, SimulationState.MAX_CARS + 1}, {3, Integer.MAX_VALUE}, {Integer.MAX_VALUE, 3}};
+        for (int[] size : sizes) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(SimulationState.MAGIC);
+            out.writeByte(SimulationState.VERSION);
+            out.writeInt(size[0]);
+            out.writeInt(size[1]);
+            IOException e = assertThrows(IOException.class,
+                    () -> new SimulationState().readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()))));
+            assertEquals("not a saved game state", e.getMessage(), size[0] + " lanes, " + size[1] + " cars");
+        }
+    }
+
+    // From the start to just before the crash of the seed's game with the same driver
+    private static long[] saveTicks(long seed) {
+        long end = new GameSimulation(seed).run(new DodgeBot(), MAX_TICKS).ticks();
+        return new long[]{0, 1, end / 3, end * 2 / 3, end - 1};
+    }
+
+    private static GameSimulation playTo(long seed, long tick) {
+        GameSimulation sim = new GameSimulation(seed);
+        DodgeBot bot = new DodgeBot();
+        while (sim.getTick() < tick && sim.step(GameSimulation.TICK_MS, bot.poll(sim))) { }
+        assertTrue(!sim.isCrashed(), "seed " + seed + " crashed before tick " + tick);
+        return sim;
+    }
+
+    // Compares the frames both games draw now, which covers the state only rendering reads, then
+    // runs both on from here with the same driver and compares how they end
+    private static void assertSamePlay(GameSimulation live, GameSimulation restored, long seed, long at) {
+        GameSnapshot a = live.captureSnapshot(0.5), b = restored.captureSnapshot(0.5);
+        String where = "seed " + seed + " saved at tick " + at;
+        assertTrue(a.tick() == b.tick() && a.score() == b.score() && a.level() == b.level()
+                && a.speed() == b.speed() && a.dashPhase() == b.dashPhase() && a.playerX() == b.playerX()
+                && a.pulseMs() == b.pulseMs() && a.wheelPhase() == b.wheelPhase()
+                && a.opponentCount() == b.opponentCount()
+                && Arrays.equals(a.opponentX(), b.opponentX()) && Arrays.equals(a.opponentY(), b.opponentY())
+                && Arrays.equals(a.opponentWidth(), b.opponentWidth())
+                && Arrays.equals(a.opponentHeight(), b.opponentHeight())
+                && Arrays.equals(a.opponentPalette(), b.opponentPalette()), "frame differs, " + where);
+
+        GameSimulation.Result expected = live.run(new DodgeBot(), MAX_TICKS);
+        GameSimulation.Result actual = restored.run(new DodgeBot(), MAX_TICKS);
+        assertTrue(expected.ticks() > at, "did not play on, " + where);
+        assertEquals(expected, actual, where);
+    }
+}